@@ -0,0 +1,170 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import benchmarks.GraphOperations;
+
+/**
+ * Generated road network and the graph built from it, used by the JMH benchmarks
+ */
+public class GraphFixture implements GraphOperations {
+    private Town[] towns;
+    private int[] sources, destinations, weights;
+    private int roadCount;
+    private Graph graph;
+    private GraphInterface<Town, Road> shared;
+    private Object monitor;
+    private String shape;
+    private long seed;
+
+    @Override
+    public void generate(String shape, int size, long seed) {
+        this.shape = shape;
+        this.seed = seed;
+        RoadNetworkGenerator generator = new RoadNetworkGenerator(RoadNetworkGenerator.Shape.valueOf(shape.toUpperCase()), size, seed);
+        towns = new Town[size];
+
+        for (int i = 0; i < size; i++) {
+            towns[i] = new Town(RoadNetworkGenerator.townName(i));
+        }
+
+        sources = new int[4 * size];
+        destinations = new int[4 * size];
+        weights = new int[4 * size];
+        roadCount = 0;
+
+        try {
+            generator.generate(this::addRoad);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        graph = (Graph) buildGraph();
+    }
+
+    private void addRoad(int road, int weight, int source, int destination) {
+        if (roadCount == sources.length) {
+            sources = Arrays.copyOf(sources, 2 * roadCount);
+            destinations = Arrays.copyOf(destinations, 2 * roadCount);
+            weights = Arrays.copyOf(weights, 2 * roadCount);
+        }
+
+        sources[roadCount] = source;
+        destinations[roadCount] = destination;
+        weights[roadCount] = weight;
+        roadCount++;
+    }
+
+    @Override
+    public int townCount() {
+        return towns.length;
+    }
+
+    @Override
+    public int roadCount() {
+        return roadCount;
+    }
+
+    @Override
+    public Object buildGraph() {
+        Graph built = new Graph();
+
+        for (Town town : towns) {
+            built.addVertex(town);
+        }
+        for (int i = 0; i < roadCount; i++) {
+            built.addEdge(towns[sources[i]], towns[destinations[i]], weights[i], RoadNetworkGenerator.roadName(i));
+        }
+
+        return built;
+    }
+
+    @Override
+    public Object getVertex(int town) {
+        return graph.getVertex(towns[town].getName());
+    }
+
+    @Override
+    public Object getEdge(int road) {
+        return graph.getEdge(towns[sources[road]], towns[destinations[road]]);
+    }
+
+    @Override
+    public Object edgeSet() {
+        return graph.edgeSet();
+    }
+
+    @Override
+    public Object dijkstraShortestPath(int source) {
+        graph.dijkstraShortestPath(towns[source]);
+        return graph.shortestDistances;
+    }
+
+    @Override
+    public Object shortestPath(int source, int destination) {
+        return graph.shortestPath(towns[source], towns[destination]);
+    }
+
+    @Override
+    public void writeTownFile(File file) throws IOException {
+        new RoadNetworkGenerator(RoadNetworkGenerator.Shape.valueOf(shape.toUpperCase()), towns.length, seed).write(file);
+    }
+
+    @Override
+    public Object populateTownGraph(File file) throws IOException {
+        TownGraphManager manager = new TownGraphManager();
+        manager.populateTownGraph(file);
+        return manager;
+    }
+
+    @Override
+    public void shareGraph(String locking) {
+        Graph built = (Graph) buildGraph();
+
+        if (locking.equals("stamped")) {
+            shared = new ConcurrentGraph(built);
+            monitor = null;
+        } else if (locking.equals("synchronized")) {
+            shared = built;
+            monitor = new Object();
+        } else {
+            throw new IllegalArgumentException("Unknown locking " + locking);
+        }
+    }
+
+    @Override
+    public Object sharedGetEdge(int road) {
+        if (monitor == null) {
+            return shared.getEdge(towns[sources[road]], towns[destinations[road]]);
+        }
+        synchronized (monitor) {
+            return shared.getEdge(towns[sources[road]], towns[destinations[road]]);
+        }
+    }
+
+    @Override
+    public Object sharedShortestPath(int source, int destination) {
+        if (monitor == null) {
+            return shared.shortestPath(towns[source], towns[destination]);
+        }
+        synchronized (monitor) {
+            return shared.shortestPath(towns[source], towns[destination]);
+        }
+    }
+
+    @Override
+    public Object sharedReplaceRoad(int road) {
+        if (monitor == null) {
+            return replaceRoad(road);
+        }
+        synchronized (monitor) {
+            return replaceRoad(road);
+        }
+    }
+
+    private Road replaceRoad(int road) {
+        String name = RoadNetworkGenerator.roadName(road);
+        shared.removeEdge(towns[sources[road]], towns[destinations[road]], weights[road], name);
+        return shared.addEdge(towns[sources[road]], towns[destinations[road]], weights[road], name);
+    }
+}
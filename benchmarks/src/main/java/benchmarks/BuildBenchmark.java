@@ -0,0 +1,51 @@
+package benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Building a whole graph with addVertex and addEdge, and loading one from a road file
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BuildBenchmark {
+    private File townFile;
+
+    @Setup
+    public void writeTownFile(GraphState state) throws IOException {
+        townFile = File.createTempFile("towns", ".txt");
+        state.graph.writeTownFile(townFile);
+    }
+
+    @TearDown
+    public void deleteTownFile() {
+        townFile.delete();
+    }
+
+    @Benchmark
+    public Object addVertexAndEdge(GraphState state) {
+        return state.graph.buildGraph();
+    }
+
+    @Benchmark
+    public Object populateTownGraph(GraphState state) throws IOException {
+        return state.graph.populateTownGraph(townFile);
+    }
+}
@@ -0,0 +1,84 @@
+package benchmarks;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Readers and a writer sharing one graph, comparing ConcurrentGraph with a Graph behind a single monitor
+ * Each group runs lookups and path queries on three threads while a fourth keeps replacing roads,
+ * and the score of each method is reported separately
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContentionBenchmark {
+
+    /**
+     * Graph shared by the threads of one group
+     */
+    @State(Scope.Group)
+    public static class SharedGraph {
+        @Param({"stamped", "synchronized"})
+        public String locking;
+
+        @Param({"grid", "scale_free"})
+        public String shape;
+
+        @Param({"10000"})
+        public int size;
+
+        public GraphOperations graph;
+
+        @Setup
+        public void setUp() {
+            graph = GraphOperations.load();
+            graph.generate(shape, size, 42);
+            graph.shareGraph(locking);
+        }
+    }
+
+    @Benchmark
+    @Group("lookups")
+    @GroupThreads(3)
+    public Object getEdge(SharedGraph state) {
+        return state.graph.sharedGetEdge(ThreadLocalRandom.current().nextInt(state.graph.roadCount()));
+    }
+
+    @Benchmark
+    @Group("lookups")
+    @GroupThreads(1)
+    public Object replaceRoadDuringLookups(SharedGraph state) {
+        return state.graph.sharedReplaceRoad(ThreadLocalRandom.current().nextInt(state.graph.roadCount()));
+    }
+
+    @Benchmark
+    @Group("paths")
+    @GroupThreads(3)
+    public Object shortestPath(SharedGraph state) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return state.graph.sharedShortestPath(random.nextInt(state.graph.townCount()), random.nextInt(state.graph.townCount()));
+    }
+
+    @Benchmark
+    @Group("paths")
+    @GroupThreads(1)
+    public Object replaceRoadDuringPaths(SharedGraph state) {
+        return state.graph.sharedReplaceRoad(ThreadLocalRandom.current().nextInt(state.graph.roadCount()));
+    }
+}
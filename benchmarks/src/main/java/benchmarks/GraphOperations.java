@@ -0,0 +1,118 @@
+package benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Operations on the map graph that the benchmarks measure
+ * The graph classes live in the unnamed package, which JMH benchmarks cannot import, so
+ * they are reached through this interface and an implementation loaded by name
+ */
+public interface GraphOperations {
+
+    /**
+     * Loads the implementation that works on the graph classes
+     * @return new operations instance
+     */
+    static GraphOperations load() {
+        try {
+            return (GraphOperations) Class.forName("GraphFixture").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("GraphFixture is missing from the benchmark classpath", e);
+        }
+    }
+
+    /**
+     * Generates a road network and builds a graph from it
+     * @param shape "grid", "geometric" or "scale_free"
+     * @param size number of towns
+     * @param seed seed of the generator
+     */
+    void generate(String shape, int size, long seed);
+
+    /**
+     * @return number of generated towns
+     */
+    int townCount();
+
+    /**
+     * @return number of generated roads
+     */
+    int roadCount();
+
+    /**
+     * Builds a new graph from the generated network with addVertex and addEdge
+     * @return the built graph
+     */
+    Object buildGraph();
+
+    /**
+     * @param town index of a generated town
+     * @return result of Graph.getVertex for the town's name
+     */
+    Object getVertex(int town);
+
+    /**
+     * @param road index of a generated road
+     * @return result of Graph.getEdge for the road's towns
+     */
+    Object getEdge(int road);
+
+    /**
+     * @return result of Graph.edgeSet
+     */
+    Object edgeSet();
+
+    /**
+     * @param source index of the source town
+     * @return distances left by Graph.dijkstraShortestPath
+     */
+    Object dijkstraShortestPath(int source);
+
+    /**
+     * @param source index of the source town
+     * @param destination index of the destination town
+     * @return result of Graph.shortestPath
+     */
+    Object shortestPath(int source, int destination);
+
+    /**
+     * Writes the generated network in the format read by TownGraphManager.populateTownGraph
+     * @param file file to write
+     * @throws IOException if the file cannot be written
+     */
+    void writeTownFile(File file) throws IOException;
+
+    /**
+     * @param file file written by writeTownFile
+     * @return manager populated from the file
+     * @throws IOException if the file cannot be read
+     */
+    Object populateTownGraph(File file) throws IOException;
+
+    /**
+     * Builds a graph from the generated network for the contention benchmark to share between threads
+     * @param locking "stamped" for a ConcurrentGraph, or "synchronized" for a Graph behind one monitor
+     */
+    void shareGraph(String locking);
+
+    /**
+     * @param road index of a generated road
+     * @return result of getEdge on the shared graph for the road's towns
+     */
+    Object sharedGetEdge(int road);
+
+    /**
+     * @param source index of the source town
+     * @param destination index of the destination town
+     * @return result of shortestPath on the shared graph
+     */
+    Object sharedShortestPath(int source, int destination);
+
+    /**
+     * Removes a road from the shared graph and adds it back, leaving the network as generated
+     * @param road index of a generated road
+     * @return the road added back
+     */
+    Object sharedReplaceRoad(int road);
+}
@@ -0,0 +1,52 @@
+package benchmarks;
+
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Generated graph shared by the benchmarks, parameterized by shape and size
+ * Queries walk a fixed sequence of random town and road indices so every run sees the same inputs
+ */
+@State(Scope.Benchmark)
+public class GraphState {
+    private static final int QUERIES = 1024;
+
+    @Param({"grid", "geometric", "scale_free"})
+    public String shape;
+
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    public GraphOperations graph;
+    public int[] towns, roads, destinations;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        graph = GraphOperations.load();
+        graph.generate(shape, size, 42);
+
+        Random random = new Random(7);
+        towns = new int[QUERIES];
+        roads = new int[QUERIES];
+        destinations = new int[QUERIES];
+
+        for (int i = 0; i < QUERIES; i++) {
+            towns[i] = random.nextInt(graph.townCount());
+            roads[i] = random.nextInt(graph.roadCount());
+            destinations[i] = random.nextInt(graph.townCount());
+        }
+    }
+
+    /**
+     * @return index into the query arrays, advancing on every call
+     */
+    public int nextQuery() {
+        next = (next + 1) & (QUERIES - 1);
+        return next;
+    }
+}
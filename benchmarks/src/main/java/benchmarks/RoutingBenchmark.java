@@ -0,0 +1,33 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Full single-source trees and point-to-point paths between random towns
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RoutingBenchmark {
+
+    @Benchmark
+    public Object dijkstraShortestPath(GraphState state) {
+        return state.graph.dijkstraShortestPath(state.towns[state.nextQuery()]);
+    }
+
+    @Benchmark
+    public Object shortestPath(GraphState state) {
+        int query = state.nextQuery();
+        return state.graph.shortestPath(state.towns[query], state.destinations[query]);
+    }
+}
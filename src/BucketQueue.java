@@ -0,0 +1,149 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.NoSuchElementException;
+
+/**
+ * Monotone priority queue for small non-negative integer keys (Dial's algorithm)
+ * Keys in the queue always lie within maxStep of the lowest key, so a circular array of at most
+ * maxStep + 1 buckets holds every key in its own bucket and push and poll cost O(1) amortized.
+ * The array starts small and doubles only when a key lands beyond it, so a search that settles a
+ * few towns does not pay for the full step. Items with equal keys come out most recently pushed first
+ * @param <T> type of item held in the queue
+ */
+public class BucketQueue<T> {
+    private static final int INITIAL_BUCKETS = 16;
+
+    private final int maxStep;
+    private ArrayList<ArrayDeque<T>> buckets;
+    private int cursor;
+    private int size;
+
+    /**
+     * Constructs an empty queue whose lowest key starts at 0
+     * @param maxStep largest difference allowed between a pushed key and the lowest key
+     */
+    public BucketQueue(int maxStep){
+        if(maxStep < 0){
+            throw new IllegalArgumentException("Step cannot be negative");
+        }
+
+        this.maxStep = maxStep;
+        buckets = emptyBuckets(Math.min(INITIAL_BUCKETS, maxStep + 1));
+    }
+
+    /**
+     * Determines if the queue is empty
+     * @return true if no items are in the queue
+     */
+    public boolean isEmpty(){
+        return size == 0;
+    }
+
+    /**
+     * Gets the number of items in the queue
+     * @return number of items
+     */
+    public int size(){
+        return size;
+    }
+
+    /**
+     * Adds an item to the queue
+     * @param item item to add
+     * @param key key of the item, between the lowest key and the lowest key plus the step
+     */
+    public void push(T item, int key){
+        if(key < cursor || key - cursor > maxStep){
+            throw new IllegalArgumentException("Key " + key + " is outside the range of the queue");
+        }
+        if(key - cursor >= buckets.size()){
+            grow(key - cursor + 1);
+        }
+
+        int index = key % buckets.size();
+        ArrayDeque<T> bucket = buckets.get(index);
+
+        if(bucket == null){
+            bucket = new ArrayDeque<>();
+            buckets.set(index, bucket);
+        }
+
+        bucket.push(item);
+        size++;
+    }
+
+    /**
+     * Gets the lowest key in the queue
+     * @return lowest key
+     */
+    public int peekKey(){
+        advance();
+        return cursor;
+    }
+
+    /**
+     * Gets an item with the lowest key without removing it
+     * @return item with the lowest key
+     */
+    public T peek(){
+        advance();
+        return buckets.get(cursor % buckets.size()).peek();
+    }
+
+    /**
+     * Removes an item with the lowest key
+     * @return item with the lowest key
+     */
+    public T poll(){
+        advance();
+        size--;
+        return buckets.get(cursor % buckets.size()).pop();
+    }
+
+    /**
+     * Moves every bucket into a larger array, keeping each key in its own bucket
+     * @param span number of keys from the cursor the array has to cover
+     */
+    private void grow(int span){
+        int length = buckets.size();
+        int newLength = length;
+        while(newLength < span){
+            newLength *= 2;
+        }
+        newLength = Math.max(span, Math.min(newLength, maxStep + 1));
+
+        ArrayList<ArrayDeque<T>> grown = emptyBuckets(newLength);
+        for(int i = 0; i < length; i++){
+            ArrayDeque<T> bucket = buckets.get(i);
+
+            //Every key in the queue lies within length of the cursor, so a bucket's index gives back its key
+            if(bucket != null && !bucket.isEmpty()){
+                int key = cursor + Math.floorMod(i - cursor, length);
+                grown.set(key % newLength, bucket);
+            }
+        }
+
+        buckets = grown;
+    }
+
+    private static <T> ArrayList<ArrayDeque<T>> emptyBuckets(int length){
+        ArrayList<ArrayDeque<T>> buckets = new ArrayList<>(length);
+        for(int i = 0; i < length; i++){
+            buckets.add(null);
+        }
+
+        return buckets;
+    }
+
+    private void advance(){
+        if(size == 0){
+            throw new NoSuchElementException();
+        }
+
+        ArrayDeque<T> bucket = buckets.get(cursor % buckets.size());
+        while(bucket == null || bucket.isEmpty()){
+            cursor++;
+            bucket = buckets.get(cursor % buckets.size());
+        }
+    }
+}
@@ -0,0 +1,82 @@
+import static org.junit.Assert.*;
+
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class BucketQueueTest {
+    private BucketQueue<String> queue;
+
+    @Before
+    public void setUp() {
+        queue = new BucketQueue<>(3);
+    }
+
+    @Test
+    public void testPollOrder() {
+        queue.push("c", 3);
+        queue.push("a", 0);
+        queue.push("b", 2);
+
+        assertEquals(0, queue.peekKey());
+        assertEquals("a", queue.poll());
+        queue.push("d", 1);
+        assertEquals("d", queue.poll());
+        assertEquals("b", queue.poll());
+        queue.push("e", 5);
+        assertEquals("c", queue.poll());
+        assertEquals(5, queue.peekKey());
+        assertEquals("e", queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testEqualKeysPopNewestFirst() {
+        queue.push("first", 1);
+        queue.push("second", 1);
+        queue.push("third", 1);
+
+        assertEquals("third", queue.poll());
+        assertEquals("second", queue.poll());
+        assertEquals("first", queue.poll());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testKeyBeyondStep() {
+        queue.push("a", 4);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testKeyBelowLowest() {
+        queue.push("a", 2);
+        queue.poll();
+        queue.push("b", 1);
+    }
+
+    @Test
+    public void testGrowsPastInitialBuckets() {
+        BucketQueue<Integer> wide = new BucketQueue<>(4096);
+        PriorityQueue<Integer> expected = new PriorityQueue<>();
+        Random random = new Random(7);
+
+        for (int i = 0; i < 40; i++) {
+            int key = random.nextInt(30);
+            wide.push(key, key);
+            expected.add(key);
+        }
+        for (int round = 0; round < 2000; round++) {
+            int lowest = wide.peekKey();
+            assertEquals((int) expected.poll(), (int) wide.poll());
+
+            int key = lowest + random.nextInt(round % 3 == 0 ? 4097 : 40);
+            wide.push(key, key);
+            expected.add(key);
+        }
+        while (!expected.isEmpty()) {
+            assertEquals((int) expected.poll(), (int) wide.poll());
+        }
+        assertTrue(wide.isEmpty());
+    }
+}
@@ -0,0 +1,379 @@
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+
+/**
+ * Graph that can be queried and changed from many threads at once
+ * The towns and roads live in a Graph guarded by a StampedLock. Single lookups such as getEdge never
+ * touch the Graph: they read concurrent maps of the towns and of each town's neighbors, which writers
+ * keep in step under the write lock and which are safe to read while a write is under way. The lookups
+ * run under an optimistic read, taking no lock at all, and are only repeated under a read lock when a
+ * writer got in the way. Set views and path queries hold the read lock, so any number of them run
+ * in parallel, and changes hold the write lock for the length of one Graph call. A StampedLock lets
+ * new readers in whenever it is read locked, even past a waiting writer, so a writer holds a turnstile
+ * while it waits and readers only queue on it while it is held, which stops a steady stream of queries
+ * from shutting changes out without making readers take turns the rest of the time
+ * Sets are copied before they are returned, so they never change under the caller. Town.getRoads()
+ * is still changed by addEdge and removeEdge and should not be read while the graph is being changed
+ */
+public class ConcurrentGraph implements GraphInterface<Town, Road> {
+    private final Graph graph;
+    private final StampedLock lock;
+    private final ReentrantLock turnstile;
+    private final ConcurrentHashMap<String, Town> townsByName;
+    private final ConcurrentHashMap<Town, ConcurrentHashMap<Town, Road>> neighbors;
+    volatile ShortestPathResult shortestPaths;
+
+    /**
+     * Default Constructor
+     */
+    public ConcurrentGraph(){
+        this(new Graph());
+    }
+
+    /**
+     * Takes over a graph, which must not be used directly afterwards
+     * @param graph graph to share
+     */
+    public ConcurrentGraph(Graph graph){
+        if(graph == null){
+            throw new NullPointerException();
+        }
+
+        this.graph = graph;
+        lock = new StampedLock();
+        turnstile = new ReentrantLock();
+        townsByName = new ConcurrentHashMap<>();
+        neighbors = new ConcurrentHashMap<>();
+
+        for(Town town : graph.vertexSet()){
+            index(town);
+
+            for(Road road : graph.edgesOf(town)){
+                indexEdge(town, road.getOtherTown(town));
+            }
+        }
+    }
+
+    private void index(Town town){
+        townsByName.put(town.getName(), town);
+        neighbors.put(town, new ConcurrentHashMap<>());
+    }
+
+    /**
+     * Copies the road the graph holds between two towns into the neighbor maps
+     */
+    private void indexEdge(Town town, Town other){
+        Road road = graph.getEdge(town, other);
+        Map<Town, Road> adjacentTowns = neighbors.get(town);
+
+        if(road == null){
+            adjacentTowns.remove(other);
+        } else {
+            adjacentTowns.put(other, road);
+        }
+    }
+
+    /**
+     * Runs a lookup on the concurrent maps without locking, repeating it under the read lock if a write overlapped it
+     * @param lookup lookup to run, which must only read townsByName and neighbors
+     * @return result of the lookup
+     */
+    private <T> T optimisticRead(Supplier<T> lookup){
+        long stamp = lock.tryOptimisticRead();
+
+        if(stamp != 0){
+            T result = lookup.get();
+
+            if(lock.validate(stamp)){
+                return result;
+            }
+        }
+
+        return read(lookup);
+    }
+
+    /**
+     * Runs a query under the read lock
+     * @param query query to run
+     * @return result of the query
+     */
+    private <T> T read(Supplier<T> query){
+        //Wait out a writer that is queued for the lock, the turnstile is free the rest of the time
+        if(turnstile.isLocked()){
+            turnstile.lock();
+            turnstile.unlock();
+        }
+
+        long stamp = lock.readLock();
+        try {
+            return query.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Runs a change under the write lock
+     * @param change change to make
+     * @return result of the change
+     */
+    private <T> T write(Supplier<T> change){
+        long stamp;
+        turnstile.lock();
+        try {
+            stamp = lock.writeLock();
+        } finally {
+            turnstile.unlock();
+        }
+
+        try {
+            return change.get();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Finds an edge in the graph given source and destination
+     * @param sourceVertex source vertex of the edge.
+     * @param destinationVertex target vertex of the edge.
+     * @return edge with matching source and destination, or null if not found
+     */
+    @Override
+    public Road getEdge(Town sourceVertex, Town destinationVertex) {
+        if(sourceVertex == null || destinationVertex == null){
+            return null;
+        }
+
+        return optimisticRead(() -> {
+            Map<Town, Road> adjacentTowns = neighbors.get(sourceVertex);
+            return adjacentTowns == null ? null : adjacentTowns.get(destinationVertex);
+        });
+    }
+
+    /**
+     * Adds a road to the graph
+     * @param sourceVertex source vertex of the edge.
+     * @param destinationVertex target vertex of the edge.
+     * @param weight weight of the edge
+     * @param description description for edge
+     * @return Road that was added
+     */
+    @Override
+    public Road addEdge(Town sourceVertex, Town destinationVertex, int weight, String description) {
+        return write(() -> {
+            Road road = graph.addEdge(sourceVertex, destinationVertex, weight, description);
+            indexEdge(road.getSource(), road.getDestination());
+            indexEdge(road.getDestination(), road.getSource());
+            return road;
+        });
+    }
+
+    /**
+     * Finds the vertex given name
+     * @param townName name to search
+     * @return Town that was found
+     */
+    public Town getVertex(String townName){
+        if(townName == null){
+            return null;
+        }
+
+        return optimisticRead(() -> townsByName.get(townName));
+    }
+
+    /**
+     * Adds a town to the graph
+     * @param town town to add
+     * @return true if town was added successfully, false if the town already exists
+     */
+    @Override
+    public boolean addVertex(Town town) {
+        return write(() -> {
+            boolean added = graph.addVertex(town);
+            if(added){
+                index(town);
+            }
+            return added;
+        });
+    }
+
+    /**
+     * Determines if a given edge is in the graph
+     * @param sourceVertex source vertex of the edge.
+     * @param destinationVertex target vertex of the edge.
+     * @return true if edge is found, false otherwise
+     */
+    @Override
+    public boolean containsEdge(Town sourceVertex, Town destinationVertex) {
+        return getEdge(sourceVertex, destinationVertex) != null;
+    }
+
+    /**
+     * Determines if a vertex is in the graph
+     * @param town town to search for
+     * @return true if vertex is found, false otherwise
+     */
+    @Override
+    public boolean containsVertex(Town town) {
+        if(town == null){
+            return false;
+        }
+
+        return optimisticRead(() -> neighbors.containsKey(town));
+    }
+
+    /**
+     * Retrieves a copy of all edges in the graph
+     * @return a set of all edges in the graph
+     */
+    @Override
+    public Set<Road> edgeSet() {
+        return read(graph::edgeSet);
+    }
+
+    /**
+     * Finds all of the roads adjacent to a given vertex
+     * @param vertex the vertex for which a set of touching edges is to be returned.
+     * @return copy of the roads adjacent to the vertex
+     */
+    @Override
+    public Set<Road> edgesOf(Town vertex) {
+        List<Road> roads = read(() -> new ArrayList<>(graph.edgesOf(vertex)));
+
+        //A list keeps parallel roads, which a HashSet would merge since they compare as equal
+        return new AbstractSet<Road>() {
+            @Override
+            public Iterator<Road> iterator() {
+                return Collections.unmodifiableList(roads).iterator();
+            }
+
+            @Override
+            public int size() {
+                return roads.size();
+            }
+        };
+    }
+
+    /**
+     * Removes an edge from the graph
+     * @param sourceVertex source vertex of the edge.
+     * @param destinationVertex target vertex of the edge.
+     * @param weight weight of the edge
+     * @param description name of the edge
+     * @return the road that was removed
+     */
+    @Override
+    public Road removeEdge(Town sourceVertex, Town destinationVertex, int weight, String description) {
+        return write(() -> {
+            Road road = graph.removeEdge(sourceVertex, destinationVertex, weight, description);
+            if(road != null){
+                indexEdge(road.getSource(), road.getDestination());
+                indexEdge(road.getDestination(), road.getSource());
+            }
+            return road;
+        });
+    }
+
+    /**
+     * Removes a vertex from the graph
+     * @param town town to be removed
+     * @return true if it was removed, false otherwise
+     */
+    @Override
+    public boolean removeVertex(Town town) {
+        return write(() -> {
+            if(!graph.removeVertex(town)){
+                return false;
+            }
+
+            for(Town neighbor : neighbors.remove(town).keySet()){
+                Map<Town, Road> adjacentTowns = neighbors.get(neighbor);
+                if(adjacentTowns != null){
+                    adjacentTowns.remove(town);
+                }
+            }
+            townsByName.remove(town.getName());
+            return true;
+        });
+    }
+
+    /**
+     * Finds a copy of all vertices
+     * @return set of all vertices
+     */
+    @Override
+    public Set<Town> vertexSet() {
+        return read(() -> new HashSet<>(graph.vertexSet()));
+    }
+
+    /**
+     * Finds the shortest path between two vertexes
+     * @param sourceVertex starting vertex
+     * @param destinationVertex ending vertex
+     * @return an ArrayList containing the shortest path
+     */
+    @Override
+    public ArrayList<String> shortestPath(Town sourceVertex, Town destinationVertex) {
+        return read(() -> graph.shortestPath(sourceVertex, destinationVertex));
+    }
+
+    /**
+     * Finds the shortest path between two vertexes with a chosen search strategy
+     * @param sourceVertex starting vertex
+     * @param destinationVertex ending vertex
+     * @param mode search strategy to use
+     * @return an ArrayList containing the shortest path
+     */
+    public ArrayList<String> shortestPath(Town sourceVertex, Town destinationVertex, SearchMode mode) {
+        return read(() -> graph.shortestPath(sourceVertex, destinationVertex, mode));
+    }
+
+    /**
+     * Finds the shortest path between two vertexes
+     * @param sourceVertex starting vertex
+     * @param destinationVertex ending vertex
+     * @return result holding the path and the towns settled on the way
+     */
+    public ShortestPathResult findShortestPath(Town sourceVertex, Town destinationVertex) {
+        return read(() -> graph.findShortestPath(sourceVertex, destinationVertex));
+    }
+
+    /**
+     * Finds the shortest distance to all other vertices
+     * @param sourceVertex the vertex to find shortest paths from
+     * @return result holding the distance and predecessor of every reachable town
+     */
+    public ShortestPathResult findShortestPaths(Town sourceVertex) {
+        return read(() -> graph.findShortestPaths(sourceVertex));
+    }
+
+    /**
+     * Finds the shortest distance to all other vertices in the graph
+     * The result is kept in shortestPaths rather than in the shared graph, so concurrent calls do not race
+     * @param sourceVertex the vertex to find shortest path from
+     */
+    @Override
+    public void dijkstraShortestPath(Town sourceVertex) {
+        shortestPaths = findShortestPaths(sourceVertex);
+    }
+
+    /**
+     * Builds a read-only compressed snapshot of the graph for path queries
+     * The snapshot needs no locking, so it suits long runs of queries between changes
+     * @return snapshot of the graph
+     */
+    public FrozenGraph freeze(){
+        return read(graph::freeze);
+    }
+}
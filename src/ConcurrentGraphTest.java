@@ -0,0 +1,153 @@
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ConcurrentGraphTest {
+    private ConcurrentGraph graph;
+    private Town[] towns;
+
+    @Before
+    public void setUp() {
+        RoadNetworkGenerator generator = new RoadNetworkGenerator(RoadNetworkGenerator.Shape.GRID, 400, 3);
+        graph = new ConcurrentGraph(generator.toGraph());
+        towns = generator.towns();
+    }
+
+    @Test
+    public void testMatchesGraph() {
+        Graph expected = new RoadNetworkGenerator(RoadNetworkGenerator.Shape.GRID, 400, 3).toGraph();
+
+        assertEquals(expected.vertexSet(), graph.vertexSet());
+        assertEquals(expected.edgeSet().size(), graph.edgeSet().size());
+        assertEquals(expected.edgesOf(towns[20]).size(), graph.edgesOf(towns[20]).size());
+        assertEquals(expected.getEdge(towns[0], towns[1]).toString(), graph.getEdge(towns[0], towns[1]).toString());
+        assertEquals(expected.shortestPath(towns[0], towns[399]), graph.shortestPath(towns[0], towns[399]));
+        assertEquals(expected.shortestPath(towns[5], towns[390], SearchMode.BIDIRECTIONAL), graph.shortestPath(towns[5], towns[390], SearchMode.BIDIRECTIONAL));
+
+        graph.dijkstraShortestPath(towns[7]);
+        assertEquals(expected.findShortestPaths(towns[7]).getDistances(), graph.shortestPaths.getDistances());
+    }
+
+    @Test
+    public void testCopiesDoNotChange() {
+        Set<Road> roads = graph.edgesOf(towns[0]);
+        Set<Town> vertices = graph.vertexSet();
+        int degree = roads.size();
+
+        graph.addVertex(new Town("Extra"));
+        graph.addEdge(towns[0], new Town("Extra"), 1, "Spur");
+        graph.addEdge(towns[0], new Town("Extra"), 2, "Spur 2");
+
+        assertEquals(degree, roads.size());
+        assertEquals(400, vertices.size());
+        assertEquals(degree + 2, graph.edgesOf(towns[0]).size());
+        assertEquals(1, graph.getEdge(new Town("Extra"), towns[0]).getWeight());
+
+        assertTrue(graph.removeVertex(new Town("Extra")));
+        assertFalse(graph.containsVertex(new Town("Extra")));
+        assertNull(graph.getVertex("Extra"));
+        assertEquals(degree, graph.edgesOf(towns[0]).size());
+    }
+
+    @Test
+    public void testReadersAndWriters() throws InterruptedException {
+        List<Road> original = new ArrayList<>(graph.edgesOf(towns[210]));
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+
+        for (int i = 0; i < 4; i++) {
+            int reader = i;
+            threads.add(new Thread(() -> {
+                try {
+                    start.await();
+                    for (int j = 0; j < 300; j++) {
+                        Town source = towns[(reader * 97 + j) % 400], destination = towns[(reader * 31 + 7 * j) % 400];
+                        graph.getEdge(source, destination);
+                        assertTrue(graph.containsEdge(towns[210], towns[211]));
+                        assertEquals(towns[399], graph.getVertex(towns[399].getName()));
+                        graph.edgesOf(towns[210]);
+                        if (j % 10 == 0) {
+                            assertFalse(graph.shortestPath(source, source == destination ? towns[(j + 1) % 400] : destination).isEmpty());
+                        }
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            }));
+        }
+        for (int i = 0; i < 2; i++) {
+            int writer = i;
+            threads.add(new Thread(() -> {
+                try {
+                    start.await();
+                    for (int j = 0; j < 300; j++) {
+                        Town extra = new Town("Extra_" + writer + "_" + j);
+                        graph.addVertex(extra);
+                        graph.addEdge(towns[210], extra, 1, "Spur_" + writer + "_" + j);
+                        graph.addEdge(extra, towns[(writer * 53 + j) % 200], 2, "Spur_" + writer + "_" + j);
+                        if (j % 2 == 1) {
+                            graph.removeVertex(extra);
+                        }
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            }));
+        }
+
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertTrue(failures.toString(), failures.isEmpty());
+        assertEquals(400 + 300, graph.vertexSet().size());
+        assertEquals(original.size() + 300, graph.edgesOf(towns[210]).size());
+    }
+
+    @Test
+    public void testLookupsFollowChanges() {
+        Graph expected = new RoadNetworkGenerator(RoadNetworkGenerator.Shape.GRID, 400, 3).toGraph();
+        List<GraphInterface<Town, Road>> graphs = new ArrayList<>();
+        graphs.add(expected);
+        graphs.add(graph);
+        String firstRoad = expected.getEdge(towns[0], towns[1]).getName();
+
+        for (GraphInterface<Town, Road> target : graphs) {
+            target.addVertex(new Town("Extra"));
+            target.addEdge(towns[0], new Town("Extra"), 5, "Spur");
+            target.addEdge(new Town("Extra"), towns[0], 7, "Second Spur");
+            target.addEdge(towns[0], towns[1], 9, "Bypass");
+            target.removeEdge(towns[0], towns[1], 0, firstRoad);
+            target.removeEdge(towns[0], new Town("Extra"), 0, "Spur");
+            target.removeVertex(towns[21]);
+        }
+
+        for (int i = 0; i < 400; i++) {
+            for (int j : new int[]{i - 20, i - 1, i + 1, i + 20}) {
+                Town other = j < 0 || j >= 400 ? new Town("Extra") : towns[j];
+                Road road = expected.getEdge(towns[i], other);
+
+                assertEquals(road == null ? null : road.getName(), graph.getEdge(towns[i], other) == null ? null : graph.getEdge(towns[i], other).getName());
+                assertEquals(expected.containsEdge(other, towns[i]), graph.containsEdge(other, towns[i]));
+            }
+            assertEquals(expected.containsVertex(towns[i]), graph.containsVertex(towns[i]));
+            assertEquals(expected.getVertex(towns[i].getName()) == null, graph.getVertex(towns[i].getName()) == null);
+        }
+        assertEquals("Second Spur", graph.getEdge(new Town("Extra"), towns[0]).getName());
+        assertNull(graph.getEdge(null, towns[0]));
+        assertFalse(graph.containsVertex(null));
+        assertNull(graph.getVertex(null));
+    }
+}
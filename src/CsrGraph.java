@@ -0,0 +1,458 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Read-only graph in compressed sparse row form
+ * Towns have dense ids and the arcs of town i run from firstArc(i) to firstArc(i + 1), every road
+ * being stored once from each end. Subclasses decide where the arrays live, and the searches here run
+ * over them in the calling thread's SearchWorkspace
+ */
+public abstract class CsrGraph {
+    /**
+     * Gets the number of towns
+     * @return number of towns
+     */
+    public abstract int vertexCount();
+
+    /**
+     * Gets the number of arcs, every road is stored once from each end
+     * @return number of arcs
+     */
+    public abstract int arcCount();
+
+    /**
+     * Finds the id of a town
+     * @param townName name of the town
+     * @return id of the town, or -1 if the town is not in the graph
+     */
+    public abstract int idOf(String townName);
+
+    /**
+     * Gets the town with a given id
+     * @param id id of the town
+     * @return town with the id
+     */
+    public abstract Town getTown(int id);
+
+    /**
+     * Gets the first arc of a town, the arcs of the last town end at firstArc(vertexCount())
+     * @param town id of the town
+     * @return index of the town's first arc
+     */
+    abstract int firstArc(int town);
+
+    /**
+     * Gets the town an arc leads to
+     * @param arc index of the arc
+     * @return id of the town
+     */
+    abstract int arcTarget(int arc);
+
+    /**
+     * Gets the weight of an arc
+     * @param arc index of the arc
+     * @return weight of the road the arc belongs to
+     */
+    abstract int arcWeight(int arc);
+
+    /**
+     * Gets the road name of an arc
+     * @param arc index of the arc
+     * @return name of the road the arc belongs to
+     */
+    abstract String arcName(int arc);
+
+    /**
+     * Gets the name of a town
+     * @param id id of the town
+     * @return name of the town
+     */
+    String townName(int id){
+        return getTown(id).getName();
+    }
+
+    /**
+     * Determines if a town is in the graph
+     * @param town town to search for
+     * @return true if the town is found
+     */
+    public boolean containsVertex(Town town){
+        return town != null && idOf(town.getName()) != -1;
+    }
+
+    /**
+     * Finds a road between two towns
+     * @param sourceVertex town at one end
+     * @param destinationVertex town at the other end
+     * @return a road connecting the towns, or null if there is none
+     */
+    public Road getEdge(Town sourceVertex, Town destinationVertex){
+        if(sourceVertex == null || destinationVertex == null){
+            return null;
+        }
+
+        int source = idOf(sourceVertex.getName());
+        int destination = idOf(destinationVertex.getName());
+        int arc = source == -1 || destination == -1 ? -1 : findArc(source, destination);
+
+        return arc == -1 ? null : new Road(getTown(source), getTown(destination), arcWeight(arc), arcName(arc));
+    }
+
+    /**
+     * Finds the first arc from one town to another
+     * @return index of the arc, or -1 if the towns are not adjacent
+     */
+    int findArc(int source, int destination){
+        for(int arc = firstArc(source); arc < firstArc(source + 1); arc++){
+            if(arcTarget(arc) == destination){
+                return arc;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Finds the shortest distance from a town to every town in the graph
+     * @param sourceVertex the town to measure from
+     * @return distances indexed by town id, Integer.MAX_VALUE for unreachable towns
+     */
+    public int[] shortestDistances(Town sourceVertex){
+        int[] distances = new int[vertexCount()];
+        Arrays.fill(distances, Integer.MAX_VALUE);
+
+        int source = sourceVertex == null ? -1 : idOf(sourceVertex.getName());
+        if(source != -1){
+            SearchWorkspace workspace = search(source, -1);
+
+            for(int i = 0; i < distances.length; i++){
+                distances[i] = workspace.distance(i);
+            }
+        }
+
+        return distances;
+    }
+
+    /**
+     * Finds the length of the shortest path between two towns
+     * The search runs in the calling thread's workspace, so repeated calls allocate nothing
+     * @param sourceVertex starting town
+     * @param destinationVertex ending town
+     * @return length of the shortest path, or Integer.MAX_VALUE if there is none
+     */
+    public int distance(Town sourceVertex, Town destinationVertex){
+        int source = sourceVertex == null ? -1 : idOf(sourceVertex.getName());
+        int destination = destinationVertex == null ? -1 : idOf(destinationVertex.getName());
+
+        if(source == -1 || destination == -1){
+            return Integer.MAX_VALUE;
+        }
+
+        return search(source, destination).distance(destination);
+    }
+
+    /**
+     * Finds the shortest path between two towns
+     * @param sourceVertex starting town
+     * @param destinationVertex ending town
+     * @return an ArrayList containing the shortest path in the same format as Graph.shortestPath
+     */
+    public ArrayList<String> shortestPath(Town sourceVertex, Town destinationVertex){
+        return shortestPath(sourceVertex, destinationVertex, SearchMode.POINT_TO_POINT);
+    }
+
+    /**
+     * Finds the shortest path between two towns with a chosen search strategy
+     * @param sourceVertex starting town
+     * @param destinationVertex ending town
+     * @param mode search strategy to use
+     * @return an ArrayList containing the shortest path in the same format as Graph.shortestPath
+     */
+    public ArrayList<String> shortestPath(Town sourceVertex, Town destinationVertex, SearchMode mode){
+        if(mode == null){
+            throw new NullPointerException("Search mode cannot be null");
+        }
+
+        int source = sourceVertex == null ? -1 : idOf(sourceVertex.getName());
+        int destination = destinationVertex == null ? -1 : idOf(destinationVertex.getName());
+
+        if(source == -1 || destination == -1 || source == destination){
+            return new ArrayList<>();
+        }
+
+        if(mode == SearchMode.BIDIRECTIONAL){
+            return bidirectionalPath(source, destination);
+        }
+
+        SearchWorkspace workspace = search(source, destination);
+
+        if(workspace.distance(destination) == Integer.MAX_VALUE){
+            return new ArrayList<>();
+        }
+
+        return describeRoute(source, destination, workspace);
+    }
+
+    /**
+     * Finds the length of the shortest path from every source to every destination
+     * Each distinct source gets one search on the pool, which stops once every destination is settled
+     * @param sources towns to measure from
+     * @param destinations towns to measure to
+     * @param pool pool to run the searches on
+     * @return distances indexed by source then destination, Integer.MAX_VALUE where there is no path
+     */
+    public int[][] distanceMatrix(List<Town> sources, List<Town> destinations, ForkJoinPool pool){
+        int[][] matrix = new int[sources.size()][];
+        int[] targets = idsOf(destinations);
+
+        searchRows(sources, targets, pool, (workspace, row) -> {
+            int[] distances = new int[targets.length];
+
+            for(int j = 0; j < targets.length; j++){
+                distances[j] = workspace == null || targets[j] == -1 ? Integer.MAX_VALUE : workspace.distance(targets[j]);
+            }
+            matrix[row] = distances;
+        });
+
+        return matrix;
+    }
+
+    /**
+     * Finds the shortest path from every source to every destination
+     * @param sources towns to start from
+     * @param destinations towns to end at
+     * @param pool pool to run the searches on
+     * @return paths indexed by source then destination in the same format as shortestPath, empty where there is no path
+     */
+    public List<List<ArrayList<String>>> pathMatrix(List<Town> sources, List<Town> destinations, ForkJoinPool pool){
+        List<List<ArrayList<String>>> matrix = new ArrayList<>();
+        int[] targets = idsOf(destinations);
+        int[] origins = idsOf(sources);
+
+        for(int i = 0; i < sources.size(); i++){
+            matrix.add(null);
+        }
+
+        searchRows(sources, targets, pool, (workspace, row) -> {
+            List<ArrayList<String>> paths = new ArrayList<>(targets.length);
+
+            for(int target : targets){
+                boolean reached = workspace != null && target != -1 && workspace.distance(target) != Integer.MAX_VALUE;
+                paths.add(reached && target != origins[row] ? describeRoute(origins[row], target, workspace) : new ArrayList<>());
+            }
+            matrix.set(row, paths);
+        });
+
+        return matrix;
+    }
+
+    private int[] idsOf(List<Town> towns){
+        int[] ids = new int[towns.size()];
+
+        for(int i = 0; i < ids.length; i++){
+            ids[i] = towns.get(i) == null ? -1 : idOf(towns.get(i).getName());
+        }
+
+        return ids;
+    }
+
+    /**
+     * Runs one search per distinct source on a pool and hands every row of that source the workspace,
+     * on the thread that ran the search
+     * @param row called with the workspace, or null when the source is not in the graph, and the index of the row
+     */
+    private void searchRows(List<Town> sources, int[] targets, ForkJoinPool pool, ObjIntConsumer<SearchWorkspace> row){
+        int[] origins = idsOf(sources);
+        boolean[] isTarget = new boolean[vertexCount()];
+        int targetCount = 0;
+
+        for(int target : targets){
+            if(target != -1 && !isTarget[target]){
+                isTarget[target] = true;
+                targetCount++;
+            }
+        }
+
+        //Rows with the same source share one search, rows whose source is missing share none
+        Map<Integer, List<Integer>> rowsBySource = new LinkedHashMap<>();
+        for(int i = 0; i < origins.length; i++){
+            rowsBySource.computeIfAbsent(origins[i], origin -> new ArrayList<>()).add(i);
+        }
+
+        int remaining = targetCount;
+        List<RecursiveAction> searches = new ArrayList<>();
+
+        for(Map.Entry<Integer, List<Integer>> entry : rowsBySource.entrySet()){
+            int origin = entry.getKey();
+            searches.add(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    SearchWorkspace workspace = origin == -1 ? null : searchAll(origin, isTarget, remaining);
+
+                    for(int index : entry.getValue()){
+                        row.accept(workspace, index);
+                    }
+                }
+            });
+        }
+
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(searches);
+            }
+        });
+    }
+
+    /**
+     * Runs Dijkstra's algorithm from a source until every marked town is settled
+     * @param source id of the source town
+     * @param isTarget marks the towns to settle, indexed by id
+     * @param targetCount number of marked towns
+     * @return workspace holding the labels of the search
+     */
+    SearchWorkspace searchAll(int source, boolean[] isTarget, int targetCount){
+        SearchWorkspace workspace = SearchWorkspace.forward(vertexCount());
+        workspace.relax(source, 0, -1);
+
+        int current;
+        while(targetCount > 0 && (current = workspace.settleNext()) != -1){
+            if(isTarget[current] && --targetCount == 0){
+                break;
+            }
+            relaxArcs(current, workspace);
+        }
+
+        return workspace;
+    }
+
+    /**
+     * Runs Dijkstra's algorithm from a source in the calling thread's workspace
+     * The parent recorded for each town is the arc it was reached through
+     * @param source id of the source town
+     * @param target id of the town to stop at, or -1 to settle every reachable town
+     * @return workspace holding the labels of the search
+     */
+    SearchWorkspace search(int source, int target){
+        SearchWorkspace workspace = SearchWorkspace.forward(vertexCount());
+        workspace.relax(source, 0, -1);
+
+        int current;
+        while((current = workspace.settleNext()) != -1 && current != target){
+            relaxArcs(current, workspace);
+        }
+
+        return workspace;
+    }
+
+    private void relaxArcs(int current, SearchWorkspace workspace){
+        int distance = workspace.distance(current);
+
+        for(int arc = firstArc(current), end = firstArc(current + 1); arc < end; arc++){
+            workspace.relax(arcTarget(arc), distance + arcWeight(arc), arc);
+        }
+    }
+
+    private ArrayList<String> bidirectionalPath(int source, int destination){
+        SearchWorkspace forward = SearchWorkspace.forward(vertexCount());
+        SearchWorkspace backward = SearchWorkspace.backward(vertexCount());
+        forward.relax(source, 0, -1);
+        backward.relax(destination, 0, -1);
+
+        long best = Long.MAX_VALUE;
+        int meetingArc = -1, meetingTail = -1;
+        boolean meetingForward = true;
+
+        while(!forward.isEmpty() && !backward.isEmpty()){
+            if((long) forward.peekDistance() + backward.peekDistance() >= best){
+                break;
+            }
+
+            boolean isForward = forward.peekDistance() <= backward.peekDistance();
+            SearchWorkspace side = isForward ? forward : backward;
+            SearchWorkspace other = isForward ? backward : forward;
+            int current = side.settleNext();
+            int distance = side.distance(current);
+
+            relaxArcs(current, side);
+
+            for(int arc = firstArc(current), end = firstArc(current + 1); arc < end; arc++){
+                int otherDistance = other.distance(arcTarget(arc));
+
+                if(otherDistance != Integer.MAX_VALUE && (long) distance + arcWeight(arc) + otherDistance < best){
+                    best = (long) distance + arcWeight(arc) + otherDistance;
+                    meetingArc = arc;
+                    meetingTail = current;
+                    meetingForward = isForward;
+                }
+            }
+        }
+
+        if(meetingArc == -1){
+            return new ArrayList<>();
+        }
+
+        int meetingHead = arcTarget(meetingArc);
+        int forwardEnd = meetingForward ? meetingTail : meetingHead;
+        int backwardEnd = meetingForward ? meetingHead : meetingTail;
+
+        ArrayList<String> result = describeRoute(source, forwardEnd, forward);
+        result.add(describeArc(forwardEnd, meetingArc, backwardEnd));
+
+        //Arcs found by the backward search point toward the destination once their ends are swapped
+        int current = backwardEnd;
+        while(current != destination){
+            int arc = backward.parent(current);
+            int previous = tailOf(arc);
+            result.add(describeArc(current, arc, previous));
+            current = previous;
+        }
+
+        return result;
+    }
+
+    private ArrayList<String> describeRoute(int source, int destination, SearchWorkspace workspace){
+        ArrayList<String> result = new ArrayList<>();
+        int current = destination;
+
+        while(current != source){
+            int arc = workspace.parent(current);
+            int previous = tailOf(arc);
+            result.add(0, describeArc(previous, arc, current));
+            current = previous;
+        }
+
+        return result;
+    }
+
+    private String describeArc(int from, int arc, int to){
+        return townName(from) + " via " + arcName(arc) + " to " + townName(to) + " " + arcWeight(arc) + " mi";
+    }
+
+    /**
+     * Finds the town an arc starts from, arcs are grouped by that town so this is a binary search over the first arcs
+     * @param arc index of the arc
+     * @return id of the town
+     */
+    int tailOf(int arc){
+        int low = 0, high = vertexCount() - 1;
+
+        while(low < high){
+            int middle = (low + high + 1) >>> 1;
+
+            if(firstArc(middle) <= arc){
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        return low;
+    }
+}
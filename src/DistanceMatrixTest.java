@@ -0,0 +1,112 @@
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class DistanceMatrixTest {
+    private static final int NONE = Integer.MAX_VALUE;
+
+    private TownGraphManager manager;
+
+    @Before
+    public void setUp() {
+        manager = new TownGraphManager();
+
+        manager.addTown("A");
+        manager.addTown("B");
+        manager.addTown("C");
+        manager.addTown("D");
+        manager.addTown("Island");
+
+        manager.addRoad("A", "B", 2, "AB");
+        manager.addRoad("B", "C", 3, "BC");
+        manager.addRoad("A", "C", 5, "AC");
+        manager.addRoad("A", "D", 4, "AD long");
+        manager.addRoad("A", "D", 1, "AD short");
+    }
+
+    private static List<String> names(int... ids) {
+        List<String> names = new ArrayList<>();
+        for (int id : ids) {
+            names.add(RoadNetworkGenerator.townName(id));
+        }
+        return names;
+    }
+
+    @Test
+    public void testDistances() {
+        List<String> sources = Arrays.asList("A", "C", "Island", "C");
+        List<String> destinations = Arrays.asList("A", "B", "C", "D", "Island");
+
+        int[][] matrix = manager.getDistanceMatrix(sources, destinations);
+
+        assertArrayEquals(new int[]{0, 2, 5, 1, NONE}, matrix[0]);
+        assertArrayEquals(new int[]{5, 3, 0, 6, NONE}, matrix[1]);
+        assertArrayEquals(new int[]{NONE, NONE, NONE, NONE, 0}, matrix[2]);
+        assertArrayEquals(matrix[1], matrix[3]);
+    }
+
+    @Test
+    public void testPaths() {
+        List<List<ArrayList<String>>> paths = manager.getPathMatrix(Arrays.asList("A", "Island"), Arrays.asList("D", "C", "A", "Island"), ForkJoinPool.commonPool());
+
+        //The shorter of the two parallel roads
+        assertEquals(Arrays.asList("A via AD short to D 1 mi"), paths.get(0).get(0));
+        //Two routes of 5 miles tie, either one is a shortest path
+        List<List<String>> tied = Arrays.asList(Arrays.asList("A via AC to C 5 mi"), Arrays.asList("A via AB to B 2 mi", "B via BC to C 3 mi"));
+        assertTrue(tied.contains(paths.get(0).get(1)));
+        assertTrue(paths.get(0).get(2).isEmpty());
+        assertTrue(paths.get(0).get(3).isEmpty());
+
+        assertTrue(paths.get(1).get(0).isEmpty());
+        assertTrue(paths.get(1).get(3).isEmpty());
+    }
+
+    @Test
+    public void testMissingTowns() {
+        List<String> towns = Arrays.asList("A", "Nowhere");
+
+        int[][] matrix = manager.getDistanceMatrix(towns, towns);
+        assertArrayEquals(new int[]{0, NONE}, matrix[0]);
+        assertArrayEquals(new int[]{NONE, NONE}, matrix[1]);
+
+        assertEquals(0, manager.getDistanceMatrix(new ArrayList<>(), towns).length);
+        assertEquals(0, manager.getDistanceMatrix(towns, new ArrayList<>())[0].length);
+        assertTrue(manager.getPathMatrix(new ArrayList<>(), towns, ForkJoinPool.commonPool()).isEmpty());
+    }
+
+    @Test
+    public void testMatchesSearchPerSource() {
+        RoadNetworkGenerator generator = new RoadNetworkGenerator(RoadNetworkGenerator.Shape.GEOMETRIC, 2000, 17);
+        TownGraphManager large = generator.toManager();
+        Graph graph = generator.toGraph();
+        ForkJoinPool pool = new ForkJoinPool(3);
+        List<String> sources = names(0, 17, 345, 17, 1999);
+        List<String> destinations = names(5, 0, 1500, 999, 17, 5);
+
+        int[][] matrix = large.getDistanceMatrix(sources, destinations, pool);
+        List<List<ArrayList<String>>> paths = large.getPathMatrix(sources, destinations, pool);
+
+        assertEquals(sources.size(), matrix.length);
+        for (int i = 0; i < sources.size(); i++) {
+            assertEquals(destinations.size(), matrix[i].length);
+            ShortestPathResult tree = graph.findShortestPaths(new Town(sources.get(i)));
+
+            for (int j = 0; j < destinations.size(); j++) {
+                assertEquals(tree.distanceTo(new Town(destinations.get(j))), matrix[i][j]);
+
+                ArrayList<String> path = paths.get(i).get(j);
+                if (!path.isEmpty()) {
+                    assertEquals(matrix[i][j], TestRoutes.length(path));
+                    assertTrue(path.get(0).startsWith(sources.get(i) + " via "));
+                }
+            }
+        }
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,300 @@
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * TownGraphManager that survives restarts
+ * The graph lives in a snapshot plus a MutationLog of the changes made since. Opening loads the
+ * snapshot and replays the log, and compact folds the log into a new snapshot. Snapshot and log
+ * carry the same generation, so a log left behind by a crash in the middle of compact is recognised
+ * as already folded in and discarded. Changes replayed while opening are applied before the log is
+ * attached, so they are not logged twice. Each change is appended to the log before the graph is
+ * touched, and changes and compact hold the manager's monitor, so a change that could not be logged
+ * never reaches the graph and no change can slip into a log that compact is retiring. When every
+ * change is synced before it returns, the wait for the disk happens after the monitor is released,
+ * so changes made together from several threads share one force. A change whose sync fails has
+ * already been applied and throws anyway, and the failed log refuses every later change
+ */
+public class DurableTownGraphManager extends TownGraphManager implements Closeable {
+    private File snapshot, logFile;
+    private long commitIntervalMillis;
+    private long generation;
+    private MutationLog log;
+
+    private DurableTownGraphManager(File snapshot, File logFile, long commitIntervalMillis){
+        this.snapshot = snapshot;
+        this.logFile = logFile;
+        this.commitIntervalMillis = commitIntervalMillis;
+    }
+
+    /**
+     * Opens a graph from its snapshot and log, creating both if they do not exist
+     * @param snapshot snapshot file
+     * @param logFile mutation log file
+     * @param commitIntervalMillis longest time a change waits before it is synced to the log,
+     * or 0 to sync every change before it returns
+     * @return manager holding the recovered graph
+     * @throws IOException if the files cannot be read or the log is newer than the snapshot
+     */
+    public static DurableTownGraphManager open(File snapshot, File logFile, long commitIntervalMillis) throws IOException {
+        DurableTownGraphManager manager = new DurableTownGraphManager(snapshot, logFile, commitIntervalMillis);
+
+        if(snapshot.exists()){
+            manager.loadGraph(snapshot);
+            manager.generation = GraphSnapshot.generationOf(snapshot);
+        }
+
+        long logGeneration = logFile.exists() ? MutationLog.generationOf(logFile) : -1;
+
+        if(logGeneration > manager.generation){
+            throw new IOException(logFile + " is newer than " + snapshot);
+        } else if(logGeneration == manager.generation){
+            MutationLog.replay(logFile, manager);
+        } else {
+            MutationLog.create(logFile, manager.generation);
+        }
+
+        manager.log = new MutationLog(logFile, commitIntervalMillis);
+        return manager;
+    }
+
+    /**
+     * Adds a road and logs it
+     * @param town1 name of town 1 (lastname, firstname)
+     * @param town2 name of town 2 (lastname, firstname)
+     * @param weight weight of the road
+     * @param roadName name of road
+     * @return true if added successfully
+     */
+    @Override
+    public boolean addRoad(String town1, String town2, int weight, String roadName) {
+        MutationLog changed;
+        long sequence = 0;
+        boolean added;
+
+        synchronized(this){
+            changed = log;
+            //A road between missing towns throws before anything is logged
+            if(log != null && containsTown(town1) && containsTown(town2)){
+                sequence = log.addRoad(town1, town2, weight, roadName);
+            }
+
+            added = super.addRoad(town1, town2, weight, roadName);
+        }
+
+        awaitDurable(changed, sequence);
+        return added;
+    }
+
+    /**
+     * Adds a town and logs it
+     * @param v the town's name  (lastname, firstname)
+     * @return true if added successfully
+     */
+    @Override
+    public boolean addTown(String v) {
+        MutationLog changed;
+        long sequence = 0;
+        boolean added;
+
+        synchronized(this){
+            changed = log;
+            if(log != null && v != null && !containsTown(v)){
+                sequence = log.addTown(v);
+            }
+
+            added = super.addTown(v);
+        }
+
+        awaitDurable(changed, sequence);
+        return added;
+    }
+
+    /**
+     * Deletes a road and logs it
+     * @param town1 name of town 1 (lastname, firstname)
+     * @param town2 name of town 2 (lastname, firstname)
+     * @param road name of road
+     * @return true if road was deleted
+     */
+    @Override
+    public boolean deleteRoadConnection(String town1, String town2, String road) {
+        MutationLog changed;
+        long sequence = 0;
+        boolean deleted;
+
+        synchronized(this){
+            changed = log;
+            //A deletion whose road name matches nothing is logged too, it changes nothing when replayed either
+            if(log != null && containsRoadConnection(town1, town2)){
+                sequence = log.deleteRoadConnection(town1, town2, road);
+            }
+
+            deleted = super.deleteRoadConnection(town1, town2, road);
+        }
+
+        awaitDurable(changed, sequence);
+        return deleted;
+    }
+
+    /**
+     * Deletes a town and logs it
+     * @param v name of town (lastname, firstname)
+     * @return true if town was deleted
+     */
+    @Override
+    public boolean deleteTown(String v) {
+        MutationLog changed;
+        long sequence = 0;
+        boolean deleted;
+
+        synchronized(this){
+            changed = log;
+            if(log != null && containsTown(v)){
+                sequence = log.deleteTown(v);
+            }
+
+            deleted = super.deleteTown(v);
+        }
+
+        awaitDurable(changed, sequence);
+        return deleted;
+    }
+
+    /**
+     * Waits outside the monitor for a logged change to reach the disk when every change is synced before it returns
+     * A log that compact retired was synced before it closed, so waiting on it returns at once
+     */
+    private void awaitDurable(MutationLog changed, long sequence){
+        if(commitIntervalMillis == 0 && sequence > 0){
+            try {
+                changed.sync(sequence);
+            } catch(IOException e){
+                throw new UncheckedIOException("Mutation log could not be synced", e);
+            }
+        }
+    }
+
+    /**
+     * Populates the graph from a file and compacts, so the file's roads are not logged one by one
+     * @param file file with text to populate graph
+     * @throws FileNotFoundException
+     * @throws IOException
+     */
+    @Override
+    public synchronized void populateTownGraph(File file) throws FileNotFoundException, IOException {
+        super.populateTownGraph(file);
+        compact();
+    }
+
+    /**
+     * Populates the graph from a file on a ForkJoinPool and compacts
+     * @param file file with text to populate graph
+     * @param pool pool to load on
+     * @throws FileNotFoundException
+     * @throws IOException
+     */
+    @Override
+    public synchronized void populateTownGraph(File file, ForkJoinPool pool) throws FileNotFoundException, IOException {
+        super.populateTownGraph(file, pool);
+        compact();
+    }
+
+    /**
+     * Replaces the graph with one read from a binary snapshot and compacts
+     * @param file snapshot written by saveSnapshot
+     * @throws FileNotFoundException
+     * @throws IOException if the file cannot be read or is not a snapshot
+     */
+    @Override
+    public synchronized void loadSnapshot(File file) throws FileNotFoundException, IOException {
+        super.loadSnapshot(file);
+        compact();
+    }
+
+    /**
+     * Waits until every change made so far is on the disk
+     * @throws IOException if the log cannot be written
+     */
+    public void sync() throws IOException {
+        MutationLog current;
+        synchronized(this){
+            current = log;
+        }
+
+        //Synced outside the monitor so changes keep coming while the batch is forced, compact syncs a log before retiring it
+        current.sync();
+    }
+
+    /**
+     * Writes the graph to a new snapshot and starts an empty log
+     * The snapshot is renamed into place before the log is replaced, so a crash in between leaves a
+     * log whose generation is older than the snapshot, and that log is discarded on the next open
+     * @throws IOException if the files cannot be written
+     */
+    public synchronized void compact() throws IOException {
+        log.sync();
+
+        File temp = new File(snapshot.getPath() + ".tmp");
+        saveSnapshot(temp, generation + 1);
+        Files.move(temp.toPath(), snapshot.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        syncDirectory(snapshot);
+        generation++;
+
+        MutationLog.create(logFile, generation);
+        syncDirectory(logFile);
+
+        MutationLog folded = log;
+        log = new MutationLog(logFile, commitIntervalMillis);
+        folded.close();
+    }
+
+    /**
+     * Gets the generation of the current snapshot
+     * @return number of compactions the snapshot has been through
+     */
+    public synchronized long generation(){
+        return generation;
+    }
+
+    /**
+     * Syncs every change and closes the log
+     * @throws IOException if the log cannot be written
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        log.close();
+    }
+
+    /**
+     * Gets the number of times the current log was forced to the disk
+     * @return number of forces
+     */
+    synchronized long forceCount(){
+        return log.forceCount();
+    }
+
+    private void loadGraph(File file) throws IOException {
+        super.loadSnapshot(file);
+    }
+
+    /**
+     * Forces a rename to the disk where the platform allows a directory to be opened
+     */
+    private static void syncDirectory(File file){
+        File directory = file.getAbsoluteFile().getParentFile();
+
+        try(FileChannel channel = FileChannel.open(directory.toPath(), StandardOpenOption.READ)){
+            channel.force(true);
+        } catch(IOException e){
+            //Not every platform can sync a directory, the rename itself is still atomic
+        }
+    }
+}
@@ -0,0 +1,309 @@
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DurableTownGraphManagerTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File snapshot, log;
+
+    @Before
+    public void setUp() {
+        snapshot = new File(folder.getRoot(), "graph.snapshot");
+        log = new File(folder.getRoot(), "graph.log");
+    }
+
+    private static void build(TownGraphManagerInterface manager) {
+        manager.addTown("Town A");
+        manager.addTown("Town B");
+        manager.addTown("Town \u00c5");
+        manager.addRoad("Town A", "Town B", 4, "I-95");
+        manager.addRoad("Town A", "Town B", 2, "Route 1");
+        manager.addRoad("Town B", "Town \u00c5", 3, "Route 9");
+        manager.deleteRoadConnection("Town A", "Town B", "I-95");
+        manager.addTown("Town D");
+        manager.addRoad("Town D", "Town A", 1, "Spur");
+        manager.deleteTown("Town D");
+    }
+
+    private static void assertSameManager(TownGraphManager expected, TownGraphManager actual) {
+        assertEquals(expected.allTowns(), actual.allTowns());
+        assertEquals(expected.allRoads(), actual.allRoads());
+        assertEquals(expected.getPath("Town A", "Town \u00c5"), actual.getPath("Town A", "Town \u00c5"));
+    }
+
+    @Test
+    public void testReplayAfterReopen() throws IOException {
+        TownGraphManager expected = new TownGraphManager();
+        build(expected);
+
+        try (DurableTownGraphManager manager = DurableTownGraphManager.open(snapshot, log, 0)) {
+            build(manager);
+        }
+        assertFalse(snapshot.exists());
+
+        try (DurableTownGraphManager reopened = DurableTownGraphManager.open(snapshot, log, 0)) {
+            assertSameManager(expected, reopened);
+        }
+    }
+
+    @Test
+    public void testGroupCommit() throws Exception {
+        try (DurableTownGraphManager manager = DurableTownGraphManager.open(snapshot, log, 60000)) {
+            manager.addTown("Hub");
+            manager.sync();
+
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                int thread = i;
+                threads.add(new Thread(() -> {
+                    for (int j = 0; j < 250; j++) {
+                        synchronized (manager) {
+                            manager.addTown("Town_" + thread + "_" + j);
+                            manager.addRoad("Hub", "Town_" + thread + "_" + j, j + 1, "Road_" + thread + "_" + j);
+                        }
+                    }
+                    try {
+                        manager.sync();
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                }));
+            }
+            for (Thread thread : threads) {
+                thread.start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            try (DurableTownGraphManager copy = DurableTownGraphManager.open(new File(folder.getRoot(), "copy.snapshot"), copyOf(log), 0)) {
+                assertEquals(1001, copy.allTowns().size());
+                assertEquals(manager.allRoads(), copy.allRoads());
+            }
+        }
+    }
+
+    private File copyOf(File file) throws IOException {
+        return copyOf(file, "copy.log");
+    }
+
+    @Test
+    public void testTornTailIsTruncated() throws IOException {
+        try (DurableTownGraphManager manager = DurableTownGraphManager.open(snapshot, log, 0)) {
+            manager.addTown("Town A");
+            manager.addTown("Town B");
+            manager.addRoad("Town A", "Town B", 4, "I-95");
+        }
+        long complete = log.length();
+
+        try (DurableTownGraphManager manager = DurableTownGraphManager.open(snapshot, log, 0)) {
+            manager.addTown("Town C");
+        }
+        try (RandomAccessFile file = new RandomAccessFile(log, "rw")) {
+            file.setLength(log.length() - 3);
+        }
+
+        try (DurableTownGraphManager reopened = DurableTownGraphManager.open(snapshot, log, 0)) {
+            assertEquals(complete, log.length());
+            assertFalse(reopened.containsTown("Town C"));
+            assertTrue(reopened.containsRoadConnection("Town A", "Town B"));
+
+            reopened.addTown("Town E");
+        }
+
+        try (DurableTownGraphManager reopened = DurableTownGraphManager.open(snapshot, log, 0)) {
+            assertTrue(reopened.containsTown("Town E"));
+        }
+    }
+
+    @Test
+    public void testDamagedRecordEndsReplay() throws IOException {
+        try (DurableTownGraphManager manager = DurableTownGraphManager.open(snapshot, log, 0)) {
+            manager.addTown("Town A");
+            manager.addTown("Town B");
+            manager.addTown("Town C");
+        }
+        try (RandomAccessFile file = new RandomAccessFile(log, "rw")) {
+            file.seek(log.length() - 1);
+            file.write('X');
+        }
+
+        try (DurableTownGraphManager reopened = DurableTownGraphManager.open(snapshot, log, 0)) {
+            assertEquals(2, reopened.allTowns().size());
+        }
+    }
+
+    @Test
+    public void testCompactThenRecover() throws IOException {
+        TownGraphManager expected = new TownGraphManager();
+        build(expected);
+        expected.addRoad("Town \u00c5", "Town A", 9, "Loop");
+
+        try (DurableTownGraphManager manager = DurableTownGraphManager.open(snapshot, log, 0)) {
+            build(manager);
+            manager.compact();
+            assertEquals(1, manager.generation());
+            assertEquals(MutationLog.HEADER_BYTES, log.length());
+
+            manager.addRoad("Town \u00c5", "Town A", 9, "Loop");
+        }
+
+        assertEquals(1, GraphSnapshot.generationOf(snapshot));
+        try (DurableTownGraphManager reopened = DurableTownGraphManager.open(snapshot, log, 0)) {
+            assertEquals(1, reopened.generation());
+            assertSameManager(expected, reopened);
+        }
+    }
+
+    @Test
+    public void testStaleLogIsDiscarded() throws IOException {
+        try (DurableTownGraphManager manager = DurableTownGraphManager.open(snapshot, log, 0)) {
+            build(manager);
+        }
+        File stale = copyOf(log);
+
+        try (DurableTownGraphManager manager = DurableTownGraphManager.open(snapshot, log, 0)) {
+            manager.compact();
+        }
+
+        //A crash after the snapshot was renamed but before the log was replaced leaves the old log behind
+        Files.copy(stale.toPath(), log.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+        TownGraphManager expected = new TownGraphManager();
+        build(expected);
+        try (DurableTownGraphManager reopened = DurableTownGraphManager.open(snapshot, log, 0)) {
+            assertSameManager(expected, reopened);
+            assertEquals(MutationLog.HEADER_BYTES, log.length());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testLogNewerThanSnapshot() throws IOException {
+        MutationLog.create(log, 3);
+
+        DurableTownGraphManager.open(snapshot, log, 0);
+    }
+
+    @Test
+    public void testPopulateCompacts() throws IOException {
+        File towns = folder.newFile("towns.txt");
+        new RoadNetworkGenerator(RoadNetworkGenerator.Shape.GRID, 400, 2).write(towns);
+
+        try (DurableTownGraphManager manager = DurableTownGraphManager.open(snapshot, log, 0)) {
+            manager.populateTownGraph(towns);
+            assertEquals(MutationLog.HEADER_BYTES, log.length());
+        }
+
+        TownGraphManager expected = new TownGraphManager();
+        expected.populateTownGraph(towns);
+        try (DurableTownGraphManager reopened = DurableTownGraphManager.open(snapshot, log, 0)) {
+            assertEquals(expected.allTowns(), reopened.allTowns());
+            assertEquals(expected.getPath("Town_0", "Town_399"), reopened.getPath("Town_0", "Town_399"));
+        }
+    }
+
+    @Test
+    public void testUnloggedChangeIsNotApplied() throws IOException {
+        DurableTownGraphManager manager = DurableTownGraphManager.open(snapshot, log, 0);
+        manager.addTown("Town A");
+        manager.addTown("Town B");
+        manager.close();
+
+        try {
+            manager.addTown("Town C");
+            fail("Logged to a closed log");
+        } catch (UncheckedIOException e) {
+            //Expected
+        }
+        try {
+            manager.addRoad("Town A", "Town B", 3, "Route 1");
+            fail("Logged to a failed log");
+        } catch (UncheckedIOException e) {
+            //Expected
+        }
+
+        assertFalse(manager.containsTown("Town C"));
+        assertFalse(manager.containsRoadConnection("Town A", "Town B"));
+    }
+
+    @Test
+    public void testChangesDuringCompaction() throws Exception {
+        try (DurableTownGraphManager manager = DurableTownGraphManager.open(snapshot, log, 0)) {
+            manager.addTown("Hub");
+
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                int thread = i;
+                threads.add(new Thread(() -> {
+                    for (int j = 0; j < 100; j++) {
+                        manager.addTown("Town_" + thread + "_" + j);
+                        manager.addRoad("Hub", "Town_" + thread + "_" + j, j + 1, "Road_" + thread + "_" + j);
+                    }
+                }));
+            }
+            for (Thread thread : threads) {
+                thread.start();
+            }
+            for (int i = 0; i < 5; i++) {
+                manager.compact();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            try (DurableTownGraphManager copy = DurableTownGraphManager.open(copyOf(snapshot, "copy.snapshot"), copyOf(log, "copy.log"), 0)) {
+                assertEquals(301, copy.allTowns().size());
+                assertEquals(manager.allRoads(), copy.allRoads());
+            }
+        }
+    }
+
+    @Test
+    public void testConcurrentChangesShareForces() throws Exception {
+        try (DurableTownGraphManager manager = DurableTownGraphManager.open(snapshot, log, 0)) {
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                int thread = i;
+                threads.add(new Thread(() -> {
+                    for (int j = 0; j < 200; j++) {
+                        manager.addTown("Town_" + thread + "_" + j);
+                    }
+                }));
+            }
+            for (Thread thread : threads) {
+                thread.start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            long forces = manager.forceCount();
+            assertTrue(forces > 0);
+            assertTrue(forces + " forces for 800 changes", forces < 800);
+        }
+
+        try (DurableTownGraphManager reopened = DurableTownGraphManager.open(snapshot, log, 0)) {
+            assertEquals(800, reopened.allTowns().size());
+        }
+    }
+
+    private File copyOf(File file, String name) throws IOException {
+        File copy = new File(folder.getRoot(), name);
+        Files.copy(file.toPath(), copy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        return copy;
+    }
+}
@@ -0,0 +1,128 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only snapshot of a Graph in compressed sparse row form
+ * Towns get dense ids and the roads of town i are the arcs from offsets[i] to offsets[i + 1],
+ * each holding the id of the town it leads to, its weight and the index of its road name.
+ * The arrays are kept on the heap, see MappedGraph for the same layout read from a file.
+ * Only town names are kept, so the snapshot holds no reference to the graph it was built from
+ */
+public class FrozenGraph extends CsrGraph {
+    private String[] townNames;
+    private Map<String, Integer> ids;
+    private int[] offsets;
+    private int[] targets;
+    private int[] weights;
+    private int[] roadIds;
+    private String[] roadNames;
+
+    /**
+     * Builds a snapshot of the current state of a graph
+     * Ids follow the iteration order of the graph so ties are settled the same way as
+     * Graph.dijkstraShortestPath
+     * @param graph graph to copy
+     */
+    FrozenGraph(Graph graph){
+        int count = graph.adjacents.size();
+        Town[] towns = new Town[count];
+        townNames = new String[count];
+        ids = new HashMap<>();
+
+        int nextId = 0;
+        for(Town town : graph.adjacents.keySet()){
+            towns[nextId] = town;
+            townNames[nextId] = town.getName();
+            ids.put(town.getName(), nextId++);
+        }
+
+        int capacity = 0;
+        for(Town town : towns){
+            capacity += graph.adjacents.get(town).size();
+        }
+
+        offsets = new int[count + 1];
+        targets = new int[capacity];
+        weights = new int[capacity];
+        roadIds = new int[capacity];
+        Map<String, Integer> nameIds = new HashMap<>();
+        List<String> names = new ArrayList<>();
+
+        int arc = 0;
+        for(int i = 0; i < count; i++){
+            offsets[i] = arc;
+
+            for(Road road : graph.adjacents.get(towns[i])){
+                int target = ids.get(road.getOtherTown(towns[i]).getName());
+                Integer nameId = nameIds.get(road.getName());
+                if(nameId == null){
+                    nameId = names.size();
+                    nameIds.put(road.getName(), nameId);
+                    names.add(road.getName());
+                }
+
+                targets[arc] = target;
+                weights[arc] = road.getWeight();
+                roadIds[arc] = nameId;
+                arc++;
+            }
+        }
+        offsets[count] = arc;
+
+        roadNames = names.toArray(new String[0]);
+    }
+
+    @Override
+    public int vertexCount(){
+        return townNames.length;
+    }
+
+    @Override
+    public int arcCount(){
+        return targets.length;
+    }
+
+    @Override
+    public int idOf(String townName){
+        Integer id = ids.get(townName);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Gets the town with a given id
+     * Each call creates a new town without roads, equal to the town of the same name in the source graph
+     * @param id id of the town
+     * @return town with the id
+     */
+    @Override
+    public Town getTown(int id){
+        return new Town(townNames[id]);
+    }
+
+    @Override
+    String townName(int id){
+        return townNames[id];
+    }
+
+    @Override
+    int firstArc(int town){
+        return offsets[town];
+    }
+
+    @Override
+    int arcTarget(int arc){
+        return targets[arc];
+    }
+
+    @Override
+    int arcWeight(int arc){
+        return weights[arc];
+    }
+
+    @Override
+    String arcName(int arc){
+        return roadNames[roadIds[arc]];
+    }
+}
@@ -0,0 +1,111 @@
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FrozenGraphTest {
+    private Graph graph;
+    private FrozenGraph frozen;
+    private Town[] town;
+
+    @Before
+    public void setUp() throws Exception {
+        graph = new Graph();
+        town = new Town[12];
+
+        for (int i = 1; i < 12; i++) {
+            town[i] = new Town("Town_" + i);
+            graph.addVertex(town[i]);
+        }
+
+        graph.addEdge(town[1], town[2], 2, "Road_1");
+        graph.addEdge(town[1], town[3], 4, "Road_2");
+        graph.addEdge(town[1], town[5], 6, "Road_3");
+        graph.addEdge(town[3], town[7], 1, "Road_4");
+        graph.addEdge(town[3], town[8], 2, "Road_5");
+        graph.addEdge(town[4], town[8], 3, "Road_6");
+        graph.addEdge(town[6], town[9], 3, "Road_7");
+        graph.addEdge(town[9], town[10], 4, "Road_8");
+        graph.addEdge(town[8], town[10], 2, "Road_9");
+        graph.addEdge(town[5], town[10], 5, "Road_10");
+        graph.addEdge(town[10], town[11], 3, "Road_11");
+        graph.addEdge(town[2], town[11], 6, "Road_12");
+
+        frozen = graph.freeze();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        graph = null;
+        frozen = null;
+    }
+
+    @Test
+    public void testCounts() {
+        assertEquals(11, frozen.vertexCount());
+        assertEquals(24, frozen.arcCount());
+        assertEquals(-1, frozen.idOf("Town_12"));
+        assertEquals(town[4], frozen.getTown(frozen.idOf("Town_4")));
+    }
+
+    @Test
+    public void testTownsAreDetached() {
+        Town copy = frozen.getTown(frozen.idOf("Town_1"));
+
+        assertNotSame(town[1], copy);
+        assertTrue(copy.getRoads().isEmpty());
+
+        //Changing the graph after freezing it leaves the snapshot as it was
+        graph.removeVertex(town[1]);
+        assertEquals(11, frozen.vertexCount());
+        assertEquals("Road_1", frozen.getEdge(town[1], town[2]).getName());
+    }
+
+    @Test
+    public void testGetEdge() {
+        Road road = frozen.getEdge(town[11], town[2]);
+        assertEquals("Road_12", road.getName());
+        assertEquals(6, road.getWeight());
+        assertNull(frozen.getEdge(town[3], town[5]));
+    }
+
+    @Test
+    public void testSnapshotIgnoresLaterChanges() {
+        graph.addEdge(town[3], town[5], 1, "Road_13");
+
+        assertNull(frozen.getEdge(town[3], town[5]));
+        assertTrue(graph.freeze().getEdge(town[3], town[5]) != null);
+    }
+
+    @Test
+    public void testShortestDistances() {
+        graph.dijkstraShortestPath(town[1]);
+        int[] distances = frozen.shortestDistances(town[1]);
+
+        for (int i = 1; i < 12; i++) {
+            assertEquals((int) graph.shortestDistances.get(town[i]), distances[frozen.idOf(town[i].getName())]);
+        }
+    }
+
+    @Test
+    public void testShortestPath() {
+        for (int i = 1; i < 12; i++) {
+            for (int j = 1; j < 12; j++) {
+                ArrayList<String> expected = graph.shortestPath(town[i], town[j]);
+                assertEquals(expected, frozen.shortestPath(town[i], town[j]));
+                assertEquals(expected, frozen.shortestPath(town[i], town[j], SearchMode.BIDIRECTIONAL));
+            }
+        }
+    }
+
+    @Test
+    public void testDistance() {
+        assertEquals(8, frozen.distance(town[1], town[10]));
+        assertEquals(8, frozen.distance(town[1], town[10]));
+        assertEquals(0, frozen.distance(town[6], town[6]));
+        assertEquals(Integer.MAX_VALUE, frozen.distance(town[1], new Town("Town_12")));
+    }
+}
@@ -3,10 +3,21 @@ import java.util.*;
 /**
  * Graph that can hold Towns and Roads
  * Uses a map to hold list of adjacent roads of each town
+ * The find methods never modify the graph, so any number of threads can query a graph that is not being changed
  * @author Randall Kim
  */
 public class Graph implements GraphInterface<Town, Road>{
+    /**
+     * Largest road weight for which searches queue towns in buckets instead of a heap
+     */
+    static final int BUCKET_QUEUE_LIMIT = 4096;
+
     Map<Town, List<Road>> adjacents;
+    Map<String, Town> townsByName;
+    Map<Town, Map<Town, Road>> neighbors;
+    int minWeight, maxWeight;
+    int modCount;
+    private volatile TownIds townIds;
     Map<Town, Integer> shortestDistances;
     Map<Town, Town> backpointers;
 
@@ -15,10 +26,13 @@ public class Graph implements GraphInterface<Town, Road>{
      */
     public Graph(){
         adjacents = new HashMap<>();
+        townsByName = new HashMap<>();
+        neighbors = new HashMap<>();
     }
 
     /**
      * Finds an edge in the graph given source and destination
+     * Each town maps its neighbors to the first road added between them, so this is a single lookup
      * @param sourceVertex source vertex of the edge.
      * @param destinationVertex target vertex of the edge.
      *
@@ -30,15 +44,9 @@ public class Graph implements GraphInterface<Town, Road>{
             return null;
         }
 
-        List<Road> adjacentRoads = adjacents.get(sourceVertex);
-
-        for(Road road : adjacentRoads){
-            if(road.contains(destinationVertex)){
-                return road;
-            }
-        }
+        Map<Town, Road> adjacentTowns = neighbors.get(sourceVertex);
 
-        return null;
+        return adjacentTowns == null ? null : adjacentTowns.get(destinationVertex);
     }
 
     /**
@@ -59,32 +67,48 @@ public class Graph implements GraphInterface<Town, Road>{
             throw new IllegalArgumentException("Source and destination must already be in the graph");
         }
 
+        //Roads always point at the towns stored in the graph, even when called with equal copies
+        sourceVertex = townsByName.get(sourceVertex.getName());
+        destinationVertex = townsByName.get(destinationVertex.getName());
+
         Road newRoad = new Road(sourceVertex, destinationVertex, weight, description);
 
+        //Bounds only widen, removing a road leaves them as valid but looser limits
+        minWeight = Math.min(minWeight, weight);
+        maxWeight = Math.max(maxWeight, weight);
+
         sourceVertex.getRoads().add(newRoad);
         destinationVertex.getRoads().add(newRoad);
 
-        adjacents.get(sourceVertex).add(newRoad);
-        adjacents.get(destinationVertex).add(newRoad);
+        attach(sourceVertex, newRoad);
 
+        if(!sourceVertex.equals(destinationVertex)){
+            attach(destinationVertex, newRoad);
+        }
+
+        modCount++;
         return newRoad;
     }
 
+    /**
+     * Lists a road among the adjacent roads of one of its towns
+     * Different threads may attach roads at the same time as long as no two of them touch the same town
+     * @param town town in the graph at one end of the road
+     * @param road road to list
+     */
+    void attach(Town town, Road road){
+        adjacents.get(town).add(road);
+        neighbors.get(town).putIfAbsent(road.getOtherTown(town), road);
+    }
+
     /**
      * Finds the vertex given name
+     * Names are looked up in an index kept by addVertex and removeVertex
      * @param townName name to search
      * @return Town that was found
      */
     public Town getVertex(String townName){
-        Set<Town> towns = adjacents.keySet();
-
-        for(Town town : towns){
-            if(town.getName().equals(townName)){
-                return town;
-            }
-        }
-
-        return null;
+        return townsByName.get(townName);
     }
 
     /**
@@ -102,6 +126,9 @@ public class Graph implements GraphInterface<Town, Road>{
             return false;
         } else {
             adjacents.put(town, new ArrayList<>());
+            neighbors.put(town, new HashMap<>());
+            townsByName.put(town.getName(), town);
+            townIds = null;
             return true;
         }
     }
@@ -115,17 +142,9 @@ public class Graph implements GraphInterface<Town, Road>{
      */
     @Override
     public boolean containsEdge(Town sourceVertex, Town destinationVertex) {
-        if(adjacents.containsKey(sourceVertex)){
-            List<Road> adjacentRoads = adjacents.get(sourceVertex);
-
-            for(Road road : adjacentRoads){
-                if(road.contains(destinationVertex)){
-                    return true;
-                }
-            }
-        }
+        Map<Town, Road> adjacentTowns = neighbors.get(sourceVertex);
 
-        return false;
+        return adjacentTowns != null && adjacentTowns.containsKey(destinationVertex);
     }
 
     /**
@@ -164,6 +183,7 @@ public class Graph implements GraphInterface<Town, Road>{
 
     /**
      * Finds all of the roads adjacent to a given vertex
+     * The set is a read-only view of the town's roads rather than a copy
      * @param vertex the vertex for which a set of touching edges is to be
      * returned.
      *
@@ -179,7 +199,19 @@ public class Graph implements GraphInterface<Town, Road>{
             throw new IllegalArgumentException();
         }
 
-        return new HashSet<>(adjacents.get(vertex));
+        List<Road> roads = adjacents.get(vertex);
+
+        return new AbstractSet<Road>() {
+            @Override
+            public Iterator<Road> iterator() {
+                return Collections.unmodifiableList(roads).iterator();
+            }
+
+            @Override
+            public int size() {
+                return roads.size();
+            }
+        };
     }
 
     /**
@@ -192,16 +224,19 @@ public class Graph implements GraphInterface<Town, Road>{
      */
     @Override
     public Road removeEdge(Town sourceVertex, Town destinationVertex, int weight, String name) {
-        List<Road> adjacentRoads = adjacents.get(sourceVertex);
+        if(!adjacents.containsKey(sourceVertex) || !adjacents.containsKey(destinationVertex)){
+            return null;
+        }
 
-        for(Road road : adjacentRoads){
-            if(road.contains(destinationVertex) && road.getName() == name){
-                adjacentRoads.remove(road);
-                adjacents.get(destinationVertex).remove(sourceVertex);
+        for(Road road : adjacents.get(sourceVertex)){
+            if(road.getOtherTown(sourceVertex).equals(destinationVertex) && (name == null || name.equals(road.getName()))){
+                detach(road, sourceVertex);
+                detach(road, destinationVertex);
 
-                sourceVertex.getRoads().remove(destinationVertex);
-                destinationVertex.getRoads().remove(sourceVertex);
+                road.getSource().getRoads().removeIf(candidate -> candidate == road);
+                road.getDestination().getRoads().removeIf(candidate -> candidate == road);
 
+                modCount++;
                 return road;
             }
         }
@@ -218,47 +253,343 @@ public class Graph implements GraphInterface<Town, Road>{
     public boolean removeVertex(Town town) {
         if(adjacents.containsKey(town)){
             for(Road road : adjacents.get(town)){
-                adjacents.get(road.getDestination()).remove(town);
+                Town other = road.getOtherTown(town);
+
+                if(!other.equals(town)){
+                    detach(road, other);
+                    other.getRoads().removeIf(candidate -> candidate == road);
+                }
             }
 
             adjacents.remove(town);
+            neighbors.remove(town);
+            townsByName.remove(town.getName());
+            townIds = null;
+            modCount++;
             return true;
         }
 
         return false;
     }
 
+    /**
+     * Removes a road from one of its towns, falling back to a parallel road for neighbor lookups
+     * @param road road to remove
+     * @param town town at one end of the road
+     */
+    private void detach(Road road, Town town){
+        List<Road> roads = adjacents.get(town);
+
+        if(roads == null){
+            return;
+        }
+
+        //Roads are matched by identity since parallel roads compare as equal
+        for(int i = 0; i < roads.size(); i++){
+            if(roads.get(i) == road){
+                roads.remove(i);
+                break;
+            }
+        }
+
+        Town other = road.getOtherTown(town);
+        Map<Town, Road> adjacentTowns = neighbors.get(town);
+
+        if(adjacentTowns.get(other) == road){
+            adjacentTowns.remove(other);
+
+            for(Road remaining : roads){
+                if(remaining.getOtherTown(town).equals(other)){
+                    adjacentTowns.put(other, remaining);
+                    break;
+                }
+            }
+        }
+    }
+
     /**
      * Finds all vertices
+     * The set is a read-only view so towns can only be removed through removeVertex
      * @return set of all vertices
      */
     @Override
     public Set<Town> vertexSet() {
-        return adjacents.keySet();
+        return Collections.unmodifiableSet(adjacents.keySet());
+    }
+
+    /**
+     * Builds a read-only compressed snapshot of the graph for path queries
+     * Later changes to the graph are not reflected in the snapshot
+     * @return snapshot of the graph
+     */
+    public FrozenGraph freeze(){
+        return new FrozenGraph(this);
     }
 
     /**
      * Finds the shortest path between two vertexes
+     * The search stops as soon as the destination is settled and only keeps labels
+     * for the towns it reaches, so short trips never touch the rest of the graph
      * @param sourceVertex starting vertex
      * @param destinationVertex ending vertex
      * @return an ArrayList containing the shortest path
      */
     @Override
     public ArrayList<String> shortestPath(Town sourceVertex, Town destinationVertex) {
-        dijkstraShortestPath(sourceVertex);
-        ArrayList<String> result = new ArrayList<>();
+        return new ArrayList<>(findShortestPath(sourceVertex, destinationVertex).getPath());
+    }
+
+    /**
+     * Finds the shortest path between two vertexes without changing the graph
+     * The search stops as soon as the destination is settled
+     * @param sourceVertex starting vertex
+     * @param destinationVertex ending vertex
+     * @return result holding the path and the towns settled on the way
+     */
+    public ShortestPathResult findShortestPath(Town sourceVertex, Town destinationVertex) {
+        Town source = sourceVertex == null ? null : getVertex(sourceVertex.getName());
+        Town destination = destinationVertex == null ? null : getVertex(destinationVertex.getName());
+
+        if(source == null || destination == null){
+            return new ShortestPathResult(sourceVertex, destinationVertex, new HashMap<>(), new HashMap<>());
+        }
+
+        SearchFrontier frontier = newFrontier(source);
+        Town current;
 
-        if(shortestDistances.get(destinationVertex) == Integer.MAX_VALUE){
-            return result;
+        while((current = frontier.settleNext()) != null){
+            if(current.equals(destination)){
+                break;
+            }
+
+            expand(frontier, current);
         }
 
-        Town current = destinationVertex;
+        return frontier.toResult(destination);
+    }
+
+    /**
+     * Finds the shortest paths from a vertex to a set of vertices without changing the graph
+     * The search stops as soon as every target is settled, so its cost grows with the distance
+     * to the farthest target instead of with the size of the graph. A target that cannot be reached
+     * is only known to be unreachable once every reachable town is settled
+     * @param sourceVertex starting vertex
+     * @param targets vertices to find paths to, those not in the graph are ignored
+     * @return result holding the distance and arriving road of every town settled on the way
+     */
+    public ShortestPathResult findShortestPaths(Town sourceVertex, Collection<Town> targets) {
+        Town source = sourceVertex == null ? null : getVertex(sourceVertex.getName());
 
-        while(!current.equals(sourceVertex)){
-            Town previous = backpointers.get(current);
-            Road connectingRoad = getEdge(current, previous);
-            result.add(0, previous.getName() + " via " + connectingRoad.getName() + " to " + current.getName() + " " + connectingRoad.getWeight() + " mi");
-            current = backpointers.get(current);
+        if(source == null){
+            return new ShortestPathResult(sourceVertex, null, new HashMap<>(), new HashMap<>());
+        }
+
+        Set<Town> remaining = new HashSet<>();
+        for(Town target : targets){
+            if(target != null && adjacents.containsKey(target)){
+                remaining.add(target);
+            }
+        }
+
+        SearchFrontier frontier = newFrontier(source);
+        Town current;
+
+        while(!remaining.isEmpty() && (current = frontier.settleNext()) != null){
+            if(remaining.remove(current) && remaining.isEmpty()){
+                break;
+            }
+
+            expand(frontier, current);
+        }
+
+        return frontier.toResult(null);
+    }
+
+    /**
+     * Finds every vertex within a distance of a vertex without changing the graph
+     * The search stops once the next town to settle is beyond the radius, so its cost grows with the
+     * number of towns inside the radius instead of with the size of the graph
+     * @param sourceVertex starting vertex
+     * @param radius largest distance to include
+     * @return result holding the distance and arriving road of every town within the radius
+     */
+    public ShortestPathResult findTownsWithin(Town sourceVertex, int radius) {
+        Town source = sourceVertex == null ? null : getVertex(sourceVertex.getName());
+
+        if(source == null || radius < 0){
+            return new ShortestPathResult(sourceVertex, null, new HashMap<>(), new HashMap<>());
+        }
+
+        SearchFrontier frontier = newFrontier(source);
+        Town current;
+
+        while(frontier.peekDistance() <= radius && (current = frontier.settleNext()) != null){
+            expand(frontier, current);
+        }
+
+        return frontier.toResult(null);
+    }
+
+    /**
+     * Finds the vertices closest to a vertex without changing the graph
+     * The search stops after the source and k more towns are settled, so its cost grows with k instead
+     * of with the size of the graph. Towns tied with the last one settled may be left out
+     * @param sourceVertex starting vertex
+     * @param k number of towns to find besides the source
+     * @return result holding the distance and arriving road of the source and its k closest towns
+     */
+    public ShortestPathResult findNearestTowns(Town sourceVertex, int k) {
+        Town source = sourceVertex == null ? null : getVertex(sourceVertex.getName());
+
+        if(source == null || k < 0){
+            return new ShortestPathResult(sourceVertex, null, new HashMap<>(), new HashMap<>());
+        }
+
+        SearchFrontier frontier = newFrontier(source);
+        Town current;
+
+        while((current = frontier.settleNext()) != null && frontier.settledCount() <= k){
+            expand(frontier, current);
+        }
+
+        return frontier.toResult(null);
+    }
+
+    /**
+     * Finds the k shortest paths between two vertexes that visit no vertex twice
+     * @param sourceVertex starting vertex
+     * @param destinationVertex ending vertex
+     * @param k largest number of paths to find
+     * @return up to k paths, shortest first, each in the format of shortestPath
+     */
+    public List<ArrayList<String>> kShortestPaths(Town sourceVertex, Town destinationVertex, int k) {
+        if(destinationVertex == null || getVertex(destinationVertex.getName()) == null){
+            return new ArrayList<>();
+        }
+
+        return new KShortestPaths(this, destinationVertex).paths(sourceVertex, k);
+    }
+
+    /**
+     * Finds the shortest path between two vertexes with a chosen search strategy
+     * @param sourceVertex starting vertex
+     * @param destinationVertex ending vertex
+     * @param mode search strategy to use
+     * @return an ArrayList containing the shortest path
+     */
+    public ArrayList<String> shortestPath(Town sourceVertex, Town destinationVertex, SearchMode mode) {
+        if(mode == null){
+            throw new NullPointerException("Search mode cannot be null");
+        }
+
+        switch(mode){
+            case BIDIRECTIONAL:
+                return bidirectionalShortestPath(sourceVertex, destinationVertex);
+            default:
+                return shortestPath(sourceVertex, destinationVertex);
+        }
+    }
+
+    /**
+     * Finds the shortest path by growing a search from both ends at once
+     * The side whose next town is closer is always expanded, and the search stops
+     * once the two closest unsettled towns cannot form a shorter route than the best meeting found
+     * @param sourceVertex starting vertex
+     * @param destinationVertex ending vertex
+     * @return an ArrayList containing the shortest path
+     */
+    private ArrayList<String> bidirectionalShortestPath(Town sourceVertex, Town destinationVertex) {
+        if(!adjacents.containsKey(sourceVertex) || !adjacents.containsKey(destinationVertex) || sourceVertex.equals(destinationVertex)){
+            return new ArrayList<>();
+        }
+
+        SearchFrontier forward = newFrontier(sourceVertex);
+        SearchFrontier backward = newFrontier(destinationVertex);
+        long best = Long.MAX_VALUE;
+        Town forwardMeet = null, backwardMeet = null;
+        Road meetingRoad = null;
+
+        while(!forward.isExhausted() && !backward.isExhausted()){
+            if((long) forward.peekDistance() + backward.peekDistance() >= best){
+                break;
+            }
+
+            boolean isForward = forward.peekDistance() <= backward.peekDistance();
+            SearchFrontier side = isForward ? forward : backward;
+            SearchFrontier other = isForward ? backward : forward;
+
+            Town current = side.settleNext();
+            int distance = side.distanceTo(current);
+
+            for(Road road : adjacents.get(current)){
+                Town next = road.getOtherTown(current);
+                side.relax(next, distance + road.getWeight(), road);
+
+                int otherDistance = other.distanceTo(next);
+                if(otherDistance != Integer.MAX_VALUE && (long) distance + road.getWeight() + otherDistance < best){
+                    best = (long) distance + road.getWeight() + otherDistance;
+                    forwardMeet = isForward ? current : next;
+                    backwardMeet = isForward ? next : current;
+                    meetingRoad = road;
+                }
+            }
+        }
+
+        if(meetingRoad == null){
+            return new ArrayList<>();
+        }
+
+        LinkedList<Road> roads = forward.roadsTo(forwardMeet);
+        roads.add(meetingRoad);
+
+        Iterator<Road> towardDestination = backward.roadsTo(backwardMeet).descendingIterator();
+        while(towardDestination.hasNext()){
+            roads.add(towardDestination.next());
+        }
+
+        return describeRoute(sourceVertex, roads);
+    }
+
+    /**
+     * Starts a search frontier, choosing a bucket queue when every road weight is small and non-negative
+     * @param origin town the search starts from
+     * @return new frontier holding only the origin
+     */
+    SearchFrontier newFrontier(Town origin){
+        if(minWeight >= 0 && maxWeight <= BUCKET_QUEUE_LIMIT){
+            return new SearchFrontier(origin, maxWeight);
+        }
+
+        return new SearchFrontier(origin);
+    }
+
+    /**
+     * Relaxes every road of a settled town into a frontier
+     * @param frontier frontier the town was settled from
+     * @param town settled town
+     */
+    void expand(SearchFrontier frontier, Town town){
+        int distance = frontier.distanceTo(town);
+
+        for(Road road : adjacents.get(town)){
+            frontier.relax(road.getOtherTown(town), distance + road.getWeight(), road);
+        }
+    }
+
+    /**
+     * Describes a route in the format "town via road to town distance mi"
+     * @param sourceVertex town the route starts from
+     * @param roads roads of the route in travel order
+     * @return an ArrayList with one entry per road
+     */
+    static ArrayList<String> describeRoute(Town sourceVertex, List<Road> roads){
+        ArrayList<String> result = new ArrayList<>();
+        Town current = sourceVertex;
+
+        for(Road road : roads){
+            Town next = road.getOtherTown(current);
+            result.add(current.getName() + " via " + road.getName() + " to " + next.getName() + " " + road.getWeight() + " mi");
+            current = next;
         }
 
         return result;
@@ -266,60 +597,166 @@ public class Graph implements GraphInterface<Town, Road>{
 
     /**
      * Finds the shortest distance to all other vertices in the graph
+     * The results are kept in shortestDistances and backpointers
      * @param sourceVertex the vertex to find shortest path from
      */
     @Override
     public void dijkstraShortestPath(Town sourceVertex) {
+        ShortestPathResult tree = findShortestPaths(sourceVertex);
+
         shortestDistances = new HashMap<>();
         backpointers = new HashMap<>();
-        Map<Town, Boolean> included = new HashMap<>();
 
         for(Town town : adjacents.keySet()){
-            shortestDistances.put(town, Integer.MAX_VALUE);
-            backpointers.put(town, null);
-            included.put(town, false);
+            shortestDistances.put(town, tree.distanceTo(town));
+            backpointers.put(town, tree.predecessorOf(town));
         }
+    }
 
-        shortestDistances.replace(sourceVertex, 0);
-
-        for(Town town1 : adjacents.keySet()){
-            Town minimumDistanceTown = getMinimumDistance(shortestDistances, included);
+    /**
+     * Finds the nearest of several sources for every town in one search
+     * Every source starts in the queue at distance 0 and each town takes the source of the town it
+     * was reached from, so the whole graph is labeled in O((V + E) log V) however many sources there are
+     * @param sources towns to measure from, those not in the graph are ignored
+     * @return id-indexed nearest source, distance and predecessor of every town
+     */
+    public NearestSources findNearestSources(List<Town> sources) {
+        TownIds numbering = numberTowns();
+        Town[] towns = numbering.towns;
+        int count = towns.length;
+
+        int[] nearest = new int[count];
+        Arrays.fill(nearest, -1);
+        SearchWorkspace workspace = SearchWorkspace.forward(count);
+
+        List<Town> origins = new ArrayList<>();
+        for(Town source : sources){
+            Integer id = source == null ? null : numbering.ids.get(source);
+
+            //A town listed twice stays with its first listing
+            if(id != null && nearest[id] == -1){
+                nearest[id] = origins.size();
+                origins.add(towns[id]);
+                workspace.relax(id, 0, -1);
+            }
+        }
 
-            if(minimumDistanceTown == null){
-                continue;
+        settleAll(workspace, numbering, nearest);
+
+        int[] distances = new int[count];
+        int[] predecessors = new int[count];
+        Road[] arrivals = new Road[count];
+        for(int i = 0; i < count; i++){
+            boolean reached = workspace.isSettled(i);
+            distances[i] = reached ? workspace.distance(i) : Integer.MAX_VALUE;
+            predecessors[i] = reached ? workspace.parent(i) : -1;
+            arrivals[i] = reached ? workspace.arrival(i) : null;
+            if(!reached){
+                nearest[i] = -1;
             }
+        }
+
+        return new NearestSources(origins.toArray(new Town[0]), towns, numbering.ids, nearest, distances, predecessors, arrivals);
+    }
 
-            included.replace(minimumDistanceTown, true);
+    /**
+     * Finds the shortest distance to all other vertices without changing the graph
+     * Towns are settled from an indexed heap and only the roads of each settled
+     * town are relaxed, so a run costs O((V + E) log V)
+     * @param sourceVertex the vertex to find shortest paths from
+     * @return result holding the distance and predecessor of every reachable town
+     */
+    public ShortestPathResult findShortestPaths(Town sourceVertex) {
+        TownIds numbering = numberTowns();
+        Town[] towns = numbering.towns;
+        int count = towns.length;
 
-            for(Town town : adjacents.keySet()){
-                int distanceToNew = Integer.MAX_VALUE;
+        SearchWorkspace workspace = SearchWorkspace.forward(count);
 
-                for(Road road : adjacents.get(minimumDistanceTown)){
-                    if(road.contains(town)){
-                        distanceToNew = road.getWeight();
-                        break;
-                    }
-                }
+        Integer sourceId = sourceVertex == null ? null : numbering.ids.get(sourceVertex);
+        if(sourceId != null){
+            workspace.relax(sourceId, 0, -1);
+        }
 
-                if(included.get(town) == false && shortestDistances.get(minimumDistanceTown) + distanceToNew < shortestDistances.get(town) && distanceToNew != Integer.MAX_VALUE){
-                    shortestDistances.replace(town, distanceToNew + shortestDistances.get(minimumDistanceTown));
-                    backpointers.replace(town, minimumDistanceTown);
+        settleAll(workspace, numbering, null);
+
+        Map<Town, Integer> reached = new HashMap<>();
+        Map<Town, Road> arrivalRoads = new HashMap<>();
+
+        for(int i = 0; i < count; i++){
+            if(workspace.isSettled(i)){
+                reached.put(towns[i], workspace.distance(i));
+
+                if(workspace.arrival(i) != null){
+                    arrivalRoads.put(towns[i], workspace.arrival(i));
                 }
             }
         }
+
+        return new ShortestPathResult(sourceId == null ? sourceVertex : towns[sourceId], null, reached, arrivalRoads);
     }
 
-    private Town getMinimumDistance(Map<Town, Integer> distances, Map<Town, Boolean> included){
-        int minDist = Integer.MAX_VALUE;
-        Town minTown = null;
+    /**
+     * Gets the dense id of every town for a search over a SearchWorkspace
+     * The ids are kept until addVertex or removeVertex changes the set of towns, so queries on an
+     * unchanged graph share them. Ids follow the iteration order of the map so towns at equal distance
+     * settle in the same order as a linear scan
+     * @return towns indexed by id and the id of every town
+     */
+    private TownIds numberTowns(){
+        TownIds numbering = townIds;
 
-        for(Town town : adjacents.keySet()){
-            if(included.get(town) == false && distances.get(town) < minDist){
-                minDist = distances.get(town);
-                minTown = town;
+        //Queries may race to build the ids, each builds an equal numbering and the last one is kept
+        if(numbering == null){
+            Town[] towns = new Town[adjacents.size()];
+            Map<Town, Integer> ids = new HashMap<>();
+
+            int nextId = 0;
+            for(Town town : adjacents.keySet()){
+                towns[nextId] = town;
+                ids.put(town, nextId++);
             }
+
+            numbering = new TownIds(towns, Collections.unmodifiableMap(ids));
+            townIds = numbering;
         }
 
-        return minTown;
+        return numbering;
+    }
+
+    /**
+     * Settles every town reachable from the towns already labelled in a workspace
+     * @param workspace workspace holding the starting labels, parents are the ids of the previous towns
+     *                  and each label keeps the road the town was reached through
+     * @param numbering ids of the towns
+     * @param nearest index of the source of each town, copied along every improved road, or null to skip
+     */
+    private void settleAll(SearchWorkspace workspace, TownIds numbering, int[] nearest){
+        Town[] towns = numbering.towns;
+        int current;
+        while((current = workspace.settleNext()) != -1){
+            int distance = workspace.distance(current);
+
+            for(Road road : adjacents.get(towns[current])){
+                int next = numbering.ids.get(road.getOtherTown(towns[current]));
+
+                if(workspace.relax(next, distance + road.getWeight(), current, road) && nearest != null){
+                    nearest[next] = nearest[current];
+                }
+            }
+        }
+    }
+
+    /**
+     * Dense numbering of the towns in a graph, replaced rather than changed when the towns change
+     */
+    private static final class TownIds {
+        final Town[] towns;
+        final Map<Town, Integer> ids;
+
+        TownIds(Town[] towns, Map<Town, Integer> ids){
+            this.towns = towns;
+            this.ids = ids;
+        }
     }
 }
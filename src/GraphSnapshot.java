@@ -0,0 +1,457 @@
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary snapshot of a Graph that loads with bulk reads instead of parsing
+ * A snapshot is a header followed by int arrays: the town and road name tables (UTF-8 bytes with
+ * offsets), the source, destination, weight and name of every road, and the adjacent roads of every
+ * town in compressed sparse row form with the target and weight of each arc next to its road.
+ * Towns are numbered in the iteration order of the graph and each town's arcs keep the order of its
+ * adjacent roads. Loading presizes the maps so the towns usually iterate in the saved order and shortest
+ * path ties break the same way, but a graph whose maps grew before towns were removed can load in another order.
+ * Since version 2 the arrays end with an open addressing index from town names to ids, which lets
+ * MappedGraph find towns without reading every name, and since version 3 the file ends with the
+ * generation a DurableTownGraphManager gave the snapshot
+ */
+public class GraphSnapshot {
+    static final int MAGIC = 0x54474E53;
+    static final int VERSION = 3;
+    static final int HEADER_INTS = 8;
+
+    private static final int BLOCK_SIZE = 1 << 20;
+
+    private GraphSnapshot(){
+    }
+
+    /**
+     * Gets the number of slots in the town index, a power of two at least twice the number of towns
+     * @param townCount number of towns
+     * @return number of slots
+     */
+    static int indexCapacity(int townCount){
+        return Integer.highestOneBit(Math.max(1, 2 * townCount - 1)) << 1;
+    }
+
+    /**
+     * Gets the first slot probed for a town name, later probes move one slot forward
+     * @param townName name of the town
+     * @param capacity number of slots in the index
+     * @return index of the slot
+     */
+    static int indexSlot(String townName, int capacity){
+        int hash = townName.hashCode();
+        return (hash ^ (hash >>> 16)) & (capacity - 1);
+    }
+
+    /**
+     * Writes a snapshot of a graph
+     * @param graph graph to save
+     * @param file file to write
+     * @throws IOException if the file cannot be written
+     */
+    public static void save(Graph graph, File file) throws IOException {
+        save(graph, file, 0);
+    }
+
+    /**
+     * Writes a snapshot of a graph and forces it to the disk
+     * @param graph graph to save
+     * @param file file to write
+     * @param generation number of mutation logs folded into the snapshot
+     * @throws IOException if the file cannot be written
+     */
+    static void save(Graph graph, File file, long generation) throws IOException {
+        int townCount = graph.adjacents.size();
+        Map<Town, Integer> townIds = new HashMap<>();
+        List<Town> towns = new ArrayList<>(townCount);
+
+        for(Town town : graph.adjacents.keySet()){
+            townIds.put(town, towns.size());
+            towns.add(town);
+        }
+
+        //Roads are numbered the first time they are met walking the towns in order
+        Map<Road, Integer> roadIds = new IdentityHashMap<>();
+        List<Road> roads = new ArrayList<>();
+        int[] offsets = new int[townCount + 1];
+        int arcCount = 0;
+
+        for(int i = 0; i < townCount; i++){
+            offsets[i] = arcCount;
+
+            for(Road road : graph.adjacents.get(towns.get(i))){
+                if(!roadIds.containsKey(road)){
+                    roadIds.put(road, roads.size());
+                    roads.add(road);
+                }
+
+                arcCount++;
+            }
+        }
+        offsets[townCount] = arcCount;
+
+        int roadCount = roads.size();
+        int[] roadSources = new int[roadCount];
+        int[] roadDestinations = new int[roadCount];
+        int[] roadWeights = new int[roadCount];
+        int[] roadNames = new int[roadCount];
+        Map<String, Integer> nameIds = new HashMap<>();
+        List<String> names = new ArrayList<>();
+
+        for(int r = 0; r < roadCount; r++){
+            Road road = roads.get(r);
+            roadSources[r] = townIds.get(road.getSource());
+            roadDestinations[r] = townIds.get(road.getDestination());
+            roadWeights[r] = road.getWeight();
+
+            if(road.getName() == null){
+                roadNames[r] = -1;
+            } else {
+                Integer nameId = nameIds.get(road.getName());
+                if(nameId == null){
+                    nameId = names.size();
+                    nameIds.put(road.getName(), nameId);
+                    names.add(road.getName());
+                }
+                roadNames[r] = nameId;
+            }
+        }
+
+        int[] arcTargets = new int[arcCount];
+        int[] arcWeights = new int[arcCount];
+        int[] arcRoads = new int[arcCount];
+        int arc = 0;
+
+        for(int i = 0; i < townCount; i++){
+            for(Road road : graph.adjacents.get(towns.get(i))){
+                arcTargets[arc] = townIds.get(road.getOtherTown(towns.get(i)));
+                arcWeights[arc] = road.getWeight();
+                arcRoads[arc] = roadIds.get(road);
+                arc++;
+            }
+        }
+
+        List<String> townNames = new ArrayList<>(townCount);
+        int[] index = new int[indexCapacity(townCount)];
+
+        //Slots hold the town id plus one so that zero marks an empty slot
+        for(int i = 0; i < townCount; i++){
+            townNames.add(towns.get(i).getName());
+
+            int slot = indexSlot(towns.get(i).getName(), index.length);
+            while(index[slot] != 0){
+                slot = (slot + 1) & (index.length - 1);
+            }
+            index[slot] = i + 1;
+        }
+
+        try(FileOutputStream output = new FileOutputStream(file); FileChannel channel = output.getChannel()){
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BLOCK_SIZE);
+
+            writeInts(channel, buffer, new int[]{MAGIC, VERSION, townCount, roadCount, arcCount, names.size(), graph.minWeight, graph.maxWeight});
+            writeStrings(channel, buffer, townNames);
+            writeStrings(channel, buffer, names);
+            writeInts(channel, buffer, roadSources);
+            writeInts(channel, buffer, roadDestinations);
+            writeInts(channel, buffer, roadWeights);
+            writeInts(channel, buffer, roadNames);
+            writeInts(channel, buffer, offsets);
+            writeInts(channel, buffer, arcTargets);
+            writeInts(channel, buffer, arcWeights);
+            writeInts(channel, buffer, arcRoads);
+            writeInts(channel, buffer, index);
+            writeInts(channel, buffer, new int[]{(int) (generation >>> 32), (int) generation});
+            flush(channel, buffer);
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Reads the generation of a snapshot without loading it
+     * @param file snapshot to read
+     * @return generation the snapshot was saved with, 0 for snapshots older than version 3
+     * @throws IOException if the file cannot be read or is not a snapshot
+     */
+    static long generationOf(File file) throws IOException {
+        try(FileInputStream input = new FileInputStream(file); FileChannel channel = input.getChannel()){
+            ByteBuffer header = readAt(channel, 0, 8);
+
+            if(header.getInt(0) != MAGIC){
+                throw new IOException(file + " is not a graph snapshot");
+            }
+
+            return header.getInt(4) < 3 ? 0 : readAt(channel, channel.size() - 8, 8).getLong(0);
+        }
+    }
+
+    /**
+     * Reads a graph from a snapshot
+     * @param file snapshot to read
+     * @return a new graph equal to the one that was saved
+     * @throws IOException if the file cannot be read or is not a snapshot
+     */
+    public static Graph load(File file) throws IOException {
+        try(FileInputStream input = new FileInputStream(file); FileChannel channel = input.getChannel()){
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BLOCK_SIZE);
+            buffer.limit(0);
+
+            int[] header = readInts(channel, buffer, HEADER_INTS);
+            if(header[0] != MAGIC){
+                throw new IOException(file + " is not a graph snapshot");
+            }
+            if(header[1] < 1 || header[1] > VERSION){
+                throw new IOException("Unsupported snapshot version " + header[1]);
+            }
+
+            int townCount = header[2], roadCount = header[3], arcCount = header[4], nameCount = header[5];
+            check(townCount >= 0 && roadCount >= 0 && arcCount >= 0 && nameCount >= 0);
+
+            //Every array but the name bytes has a known length, so counts too large for the file are caught before allocating
+            long minimumInts = HEADER_INTS + (townCount + 1L) + (nameCount + 1L) + 4L * roadCount + (townCount + 1L) + 3L * arcCount;
+            check(4 * minimumInts <= channel.size());
+
+            String[] townNames = readStrings(channel, buffer, townCount);
+            String[] names = readStrings(channel, buffer, nameCount);
+            int[] roadSources = readInts(channel, buffer, roadCount);
+            int[] roadDestinations = readInts(channel, buffer, roadCount);
+            int[] roadWeights = readInts(channel, buffer, roadCount);
+            int[] roadNames = readInts(channel, buffer, roadCount);
+            int[] offsets = readInts(channel, buffer, townCount + 1);
+            skip(channel, buffer, 8L * arcCount);
+            int[] arcRoads = readInts(channel, buffer, arcCount);
+
+            //The town index and the generation are not needed here, but a file that stops short of them is cut off
+            long tail = (header[1] >= 2 ? 4L * indexCapacity(townCount) : 0) + (header[1] >= 3 ? 8 : 0);
+            check(channel.position() - buffer.remaining() + tail == channel.size());
+
+            checkRange(roadSources, 0, townCount - 1);
+            checkRange(roadDestinations, 0, townCount - 1);
+            checkRange(roadNames, -1, nameCount - 1);
+            checkRange(arcRoads, 0, roadCount - 1);
+            check(offsets[0] == 0 && offsets[townCount] == arcCount);
+            for(int i = 0; i < townCount; i++){
+                check(offsets[i] <= offsets[i + 1]);
+            }
+
+            Town[] towns = new Town[townCount];
+            Graph graph = new Graph();
+            graph.minWeight = header[6];
+            graph.maxWeight = header[7];
+
+            //Sized as the maps would have grown to, so the towns usually iterate in the same order as in the saved graph
+            int capacity = Math.max(16, (int) Math.ceil(townCount / 0.75));
+            graph.adjacents = new HashMap<>(capacity);
+            graph.neighbors = new HashMap<>(capacity);
+            graph.townsByName = new HashMap<>(capacity);
+
+            for(int i = 0; i < townCount; i++){
+                towns[i] = new Town(townNames[i]);
+                int degree = offsets[i + 1] - offsets[i];
+
+                graph.adjacents.put(towns[i], new ArrayList<>(degree));
+                graph.neighbors.put(towns[i], new HashMap<>(Math.max(4, degree * 4 / 3 + 1)));
+                check(graph.townsByName.put(townNames[i], towns[i]) == null);
+            }
+
+            //The weight bounds pick the queue a search uses, so they may be looser than the roads after removals but never tighter
+            check(graph.minWeight <= 0 && graph.maxWeight >= 0);
+            Road[] roads = new Road[roadCount];
+            for(int r = 0; r < roadCount; r++){
+                check(roadWeights[r] >= graph.minWeight && roadWeights[r] <= graph.maxWeight);
+                roads[r] = new Road(towns[roadSources[r]], towns[roadDestinations[r]], roadWeights[r], roadNames[r] == -1 ? null : names[roadNames[r]]);
+            }
+
+            //Each road is listed once at each of its towns, and a road from a town to itself once in all
+            boolean[] atSource = new boolean[roadCount], atDestination = new boolean[roadCount];
+            for(int i = 0; i < townCount; i++){
+                for(int arc = offsets[i]; arc < offsets[i + 1]; arc++){
+                    Road road = roads[arcRoads[arc]];
+
+                    if(road.getSource() == towns[i]){
+                        check(!atSource[arcRoads[arc]]);
+                        atSource[arcRoads[arc]] = true;
+                    } else {
+                        check(road.getDestination() == towns[i] && !atDestination[arcRoads[arc]]);
+                        atDestination[arcRoads[arc]] = true;
+                    }
+
+                    //A road from a town to itself is listed once among its adjacent roads but twice among the town's roads
+                    towns[i].getRoads().add(road);
+                    if(road.getSource() == road.getDestination()){
+                        towns[i].getRoads().add(road);
+                    }
+
+                    graph.attach(towns[i], road);
+                }
+            }
+            for(int r = 0; r < roadCount; r++){
+                check(atSource[r] && (atDestination[r] || roadSources[r] == roadDestinations[r]));
+            }
+
+            return graph;
+        }
+    }
+
+    private static ByteBuffer readAt(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+
+        while(buffer.hasRemaining()){
+            if(position < 0 || channel.read(buffer, position + buffer.position()) == -1){
+                throw new IOException("Snapshot ended early");
+            }
+        }
+
+        return buffer;
+    }
+
+    private static void writeStrings(FileChannel channel, ByteBuffer buffer, List<String> strings) throws IOException {
+        byte[][] encoded = new byte[strings.size()][];
+        int[] offsets = new int[strings.size() + 1];
+
+        for(int i = 0; i < strings.size(); i++){
+            encoded[i] = strings.get(i).getBytes(StandardCharsets.UTF_8);
+            offsets[i + 1] = offsets[i] + encoded[i].length;
+        }
+
+        writeInts(channel, buffer, offsets);
+
+        for(byte[] bytes : encoded){
+            for(int written = 0; written < bytes.length; ){
+                if(!buffer.hasRemaining()){
+                    flush(channel, buffer);
+                }
+
+                int length = Math.min(buffer.remaining(), bytes.length - written);
+                buffer.put(bytes, written, length);
+                written += length;
+            }
+        }
+
+        //Pad so the int arrays that follow stay aligned
+        while(offsets[strings.size()] % 4 != 0){
+            if(!buffer.hasRemaining()){
+                flush(channel, buffer);
+            }
+            buffer.put((byte) 0);
+            offsets[strings.size()]++;
+        }
+    }
+
+    private static void writeInts(FileChannel channel, ByteBuffer buffer, int[] values) throws IOException {
+        for(int written = 0; written < values.length; ){
+            if(buffer.remaining() < 4){
+                flush(channel, buffer);
+            }
+
+            int length = Math.min(buffer.remaining() / 4, values.length - written);
+            buffer.asIntBuffer().put(values, written, length);
+            buffer.position(buffer.position() + 4 * length);
+            written += length;
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while(buffer.hasRemaining()){
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static String[] readStrings(FileChannel channel, ByteBuffer buffer, int count) throws IOException {
+        int[] offsets = readInts(channel, buffer, count + 1);
+        int length = offsets[count];
+
+        check(offsets[0] == 0 && length <= channel.size());
+        for(int i = 0; i < count; i++){
+            check(offsets[i] <= offsets[i + 1]);
+        }
+        byte[] bytes = new byte[length + (4 - length % 4) % 4];
+
+        for(int read = 0; read < bytes.length; ){
+            fill(channel, buffer);
+            int chunk = Math.min(buffer.remaining(), bytes.length - read);
+            buffer.get(bytes, read, chunk);
+            read += chunk;
+        }
+
+        String[] strings = new String[count];
+        for(int i = 0; i < count; i++){
+            strings[i] = new String(bytes, offsets[i], offsets[i + 1] - offsets[i], StandardCharsets.UTF_8);
+        }
+
+        return strings;
+    }
+
+    private static void check(boolean valid) throws IOException {
+        if(!valid){
+            throw new IOException("Snapshot is corrupt");
+        }
+    }
+
+    private static void checkRange(int[] values, int min, int max) throws IOException {
+        for(int value : values){
+            check(value >= min && value <= max);
+        }
+    }
+
+    private static int[] readInts(FileChannel channel, ByteBuffer buffer, int count) throws IOException {
+        check(count >= 0);
+
+        int[] values = new int[count];
+
+        for(int read = 0; read < count; ){
+            fill(channel, buffer);
+
+            IntBuffer ints = buffer.asIntBuffer();
+            int length = Math.min(ints.remaining(), count - read);
+            ints.get(values, read, length);
+            buffer.position(buffer.position() + 4 * length);
+            read += length;
+        }
+
+        return values;
+    }
+
+    /**
+     * Moves past bytes that are not needed, the arc targets and weights only speed up read-only views of the file
+     */
+    private static void skip(FileChannel channel, ByteBuffer buffer, long bytes) throws IOException {
+        if(bytes <= buffer.remaining()){
+            buffer.position(buffer.position() + (int) bytes);
+            return;
+        }
+
+        channel.position(channel.position() + bytes - buffer.remaining());
+        buffer.clear();
+        buffer.limit(0);
+    }
+
+    /**
+     * Makes sure at least one int is buffered, moving leftover bytes to the front first
+     */
+    private static void fill(FileChannel channel, ByteBuffer buffer) throws IOException {
+        if(buffer.remaining() >= 4){
+            return;
+        }
+
+        buffer.compact();
+        while(buffer.position() < 4){
+            if(channel.read(buffer) == -1){
+                throw new IOException("Snapshot ended early");
+            }
+        }
+        buffer.flip();
+    }
+}
@@ -0,0 +1,216 @@
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class GraphSnapshotTest {
+
+    private static File tempFile() throws IOException {
+        File file = File.createTempFile("graph", ".snapshot");
+        file.deleteOnExit();
+        return file;
+    }
+
+    private static List<String> describe(List<Road> roads) {
+        List<String> result = new ArrayList<>();
+        for (Road road : roads) {
+            result.add(road.getSource() + "-" + road.getDestination() + " " + road.getName() + " " + road.getWeight());
+        }
+        return result;
+    }
+
+    private static void assertSameGraph(Graph expected, Graph actual) {
+        assertEquals(new ArrayList<>(expected.adjacents.keySet()), new ArrayList<>(actual.adjacents.keySet()));
+        assertEquals(expected.minWeight, actual.minWeight);
+        assertEquals(expected.maxWeight, actual.maxWeight);
+
+        for (Town town : expected.vertexSet()) {
+            Town loaded = actual.getVertex(town.getName());
+            assertEquals(describe(expected.adjacents.get(town)), describe(actual.adjacents.get(loaded)));
+            assertEquals(describe(town.getRoads()), describe(loaded.getRoads()));
+
+            for (Road road : actual.adjacents.get(loaded)) {
+                assertSame(road, actual.adjacents.get(road.getOtherTown(loaded)).stream().filter(other -> other == road).findFirst().get());
+            }
+            for (Town neighbor : expected.neighbors.get(town).keySet()) {
+                assertEquals(expected.getEdge(town, neighbor).getName(), actual.getEdge(loaded, neighbor).getName());
+            }
+        }
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        Graph graph = new Graph();
+        Town a = new Town("\u00c4lmhult"), b = new Town("B"), c = new Town("C"), d = new Town("D");
+        graph.addVertex(a);
+        graph.addVertex(b);
+        graph.addVertex(c);
+        graph.addVertex(d);
+        graph.addEdge(a, b, 4, "Road_1");
+        graph.addEdge(b, a, 2, "Road_2");
+        graph.addEdge(b, b, 1, "Loop");
+        graph.addEdge(b, c, 3, null);
+        graph.addEdge(c, d, 3, "Road_1");
+        graph.removeEdge(a, b, 4, "Road_1");
+
+        File file = tempFile();
+        GraphSnapshot.save(graph, file);
+        Graph loaded = GraphSnapshot.load(file);
+
+        assertSameGraph(graph, loaded);
+        assertNull(loaded.getEdge(new Town("B"), new Town("C")).getName());
+        assertEquals(graph.shortestPath(a, d), loaded.shortestPath(a, d));
+    }
+
+    @Test
+    public void testGeneratedNetwork() throws IOException {
+        Graph graph = new RoadNetworkGenerator(RoadNetworkGenerator.Shape.GRID, 100000, 4).toGraph();
+        File file = tempFile();
+
+        GraphSnapshot.save(graph, file);
+        Graph loaded = GraphSnapshot.load(file);
+
+        assertSameGraph(graph, loaded);
+        for (int i = 0; i < 10; i++) {
+            Town source = new Town(RoadNetworkGenerator.townName(i * 997)), destination = new Town(RoadNetworkGenerator.townName(99999 - i * 1009));
+            assertEquals(graph.shortestPath(source, destination), loaded.shortestPath(source, destination));
+        }
+    }
+
+    @Test
+    public void testEmptyGraph() throws IOException {
+        File file = tempFile();
+        GraphSnapshot.save(new Graph(), file);
+
+        assertTrue(GraphSnapshot.load(file).vertexSet().isEmpty());
+    }
+
+    @Test
+    public void testManagerSaveAndLoad() throws IOException {
+        TownGraphManager manager = new TownGraphManager();
+        new RoadNetworkGenerator(RoadNetworkGenerator.Shape.SCALE_FREE, 500, 8).populate(manager);
+        File file = tempFile();
+        manager.saveSnapshot(file);
+
+        TownGraphManager restored = new TownGraphManager();
+        restored.addTown("Replaced");
+        restored.loadSnapshot(file);
+
+        assertEquals(manager.allTowns(), restored.allTowns());
+        assertEquals(manager.allRoads(), restored.allRoads());
+        assertEquals(manager.getPath("Town_0", "Town_499"), restored.getPath("Town_0", "Town_499"));
+    }
+
+    @Test(expected = IOException.class)
+    public void testNotASnapshot() throws IOException {
+        File file = tempFile();
+        try (FileOutputStream output = new FileOutputStream(file)) {
+            output.write("Road_1,1;Town A;Town B\n".getBytes());
+        }
+
+        GraphSnapshot.load(file);
+    }
+
+    @Test
+    public void testCorruptSnapshots() throws IOException {
+        File file = tempFile();
+        GraphSnapshot.save(new RoadNetworkGenerator(RoadNetworkGenerator.Shape.GRID, 100, 3).toGraph(), file);
+        byte[] saved = Files.readAllBytes(file.toPath());
+        File corrupt = tempFile();
+
+        for (int length = 0; length < saved.length - 8; length += 37) {
+            try (RandomAccessFile output = new RandomAccessFile(corrupt, "rw")) {
+                output.setLength(0);
+                output.write(saved, 0, length);
+            }
+            assertLoadFails(corrupt);
+        }
+
+        //Every int of the header and of each table, overwritten with values out of range
+        for (int position = 8; position < saved.length - 8; position += 4 * 13) {
+            for (int value : new int[]{-7, Integer.MAX_VALUE, 100000}) {
+                byte[] bytes = saved.clone();
+                bytes[position] = (byte) (value >>> 24);
+                bytes[position + 1] = (byte) (value >>> 16);
+                bytes[position + 2] = (byte) (value >>> 8);
+                bytes[position + 3] = (byte) value;
+                Files.write(corrupt.toPath(), bytes);
+
+                try {
+                    GraphSnapshot.load(corrupt);
+                } catch (IOException e) {
+                    //Expected for most positions, the rest hold weights or name bytes where any value loads
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testWeightBoundsCoverRoads() throws IOException {
+        Graph graph = new Graph();
+        Town a = new Town("A"), b = new Town("B"), c = new Town("C");
+        graph.addVertex(a);
+        graph.addVertex(b);
+        graph.addVertex(c);
+        graph.addEdge(a, b, 5, "Short");
+        graph.addEdge(b, c, 300, "Long");
+        graph.addEdge(a, c, 5000, "Removed");
+        graph.removeEdge(a, c, 5000, "Removed");
+
+        File file = tempFile();
+        GraphSnapshot.save(graph, file);
+        assertEquals(5000, GraphSnapshot.load(file).maxWeight);
+
+        //A maximum below the longest road would send searches to a bucket queue too small for it
+        try (RandomAccessFile output = new RandomAccessFile(file, "rw")) {
+            output.seek(28);
+            output.writeInt(100);
+        }
+        assertLoadFails(file);
+
+        try (RandomAccessFile output = new RandomAccessFile(file, "rw")) {
+            output.seek(24);
+            output.writeInt(7);
+            output.writeInt(5000);
+        }
+        assertLoadFails(file);
+    }
+
+    @Test
+    public void testRoadsListedAtBothTowns() throws IOException {
+        Graph graph = new Graph();
+        Town a = new Town("A"), b = new Town("B");
+        graph.addVertex(a);
+        graph.addVertex(b);
+        graph.addEdge(a, b, 5, "Route 1");
+        graph.addEdge(a, b, 7, "Route 2");
+
+        File file = tempFile();
+        GraphSnapshot.save(graph, file);
+        byte[] bytes = Files.readAllBytes(file.toPath());
+
+        //Every arc names the first road, which still touches each town but leaves the second road unlisted
+        int arcRoads = bytes.length - 8 - 4 * GraphSnapshot.indexCapacity(2) - 4 * 4;
+        Arrays.fill(bytes, arcRoads, arcRoads + 16, (byte) 0);
+        Files.write(file.toPath(), bytes);
+
+        assertLoadFails(file);
+    }
+
+    private static void assertLoadFails(File file) {
+        try {
+            GraphSnapshot.load(file);
+            fail("Loaded a corrupt snapshot");
+        } catch (IOException e) {
+            //Expected
+        }
+    }
+}
@@ -186,6 +186,15 @@ public class GraphTest {
 
     }
 
+    @Test
+    public void testBidirectionalMatchesPointToPoint() {
+        for (int i = 1; i < 12; i++) {
+            for (int j = 1; j < 12; j++) {
+                assertEquals(graph.shortestPath(town[i], town[j]), ((Graph) graph).shortestPath(town[i], town[j], SearchMode.BIDIRECTIONAL));
+            }
+        }
+    }
+
     @Test
     public void testTown_4ToTown_11() {
         String beginTown = "Town_4", endTown = "Town_11";
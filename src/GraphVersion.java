@@ -0,0 +1,467 @@
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Immutable version of a VersionedGraph
+ * Towns have dense ids shared by every version, and a version keeps the town and roads of each id
+ * in fixed-size chunks found through a tree of tables with CHUNK_SIZE slots each. Publishing a version
+ * copies only the chunks it changed and the tables on the way to them, so consecutive versions share
+ * everything else and nothing in a version ever changes after it is published. Any number of threads
+ * can query a version without locking.
+ * Holding a version is what pins it: a version holds no reference to the versions before it, so once
+ * it is superseded and no reader holds it any more, it and the chunks only it used are reclaimed by
+ * the garbage collector like any other object
+ */
+public final class GraphVersion implements GraphInterface<Town, Road> {
+    static final int CHUNK_BITS = 8;
+    static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+    private final long number;
+    private final Map<String, Integer> ids;
+    private final Object[] root;
+    private final int shift;
+    private final int idLimit, townCount, roadCount;
+
+    /**
+     * Town of a version together with its roads and the id each road leads to, all fixed for the life of the entry
+     */
+    static final class Entry {
+        final Town town;
+        final Road[] roads;
+        final int[] targets;
+
+        Entry(Town town, Road[] roads, int[] targets){
+            this.town = town;
+            this.roads = roads;
+            this.targets = targets;
+        }
+    }
+
+    /**
+     * Constructs a version, taking over the tables
+     * @param number number of the version
+     * @param ids ids of every town that was ever added, shared by all versions
+     * @param root top table of the tree, holding tables one level down or chunks of entries by id,
+     *             with null for ids that are not in this version
+     * @param shift bits of the id below the root's slot, CHUNK_BITS when the root holds chunks
+     * @param idLimit number of ids assigned when the version was published
+     * @param townCount number of towns
+     * @param roadCount number of roads
+     */
+    GraphVersion(long number, Map<String, Integer> ids, Object[] root, int shift, int idLimit, int townCount, int roadCount){
+        this.number = number;
+        this.ids = ids;
+        this.root = root;
+        this.shift = shift;
+        this.idLimit = idLimit;
+        this.townCount = townCount;
+        this.roadCount = roadCount;
+    }
+
+    /**
+     * Gets the number of the version, which grows by one with every change
+     * @return number of the version
+     */
+    public long number(){
+        return number;
+    }
+
+    /**
+     * Gets the number of towns
+     * @return number of towns
+     */
+    public int townCount(){
+        return townCount;
+    }
+
+    /**
+     * Gets the number of roads
+     * @return number of roads
+     */
+    public int roadCount(){
+        return roadCount;
+    }
+
+    /**
+     * Gets the top table of the version, which must not be changed
+     * @return root of the tree of tables
+     */
+    Object[] root(){
+        return root;
+    }
+
+    /**
+     * Gets the bits of an id below the root's slot
+     * @return CHUNK_BITS times the number of table levels
+     */
+    int shift(){
+        return shift;
+    }
+
+    /**
+     * Gets the number of ids assigned when the version was published
+     * @return one more than the largest id the version can hold
+     */
+    int idLimit(){
+        return idLimit;
+    }
+
+    /**
+     * Gets the entry of an id
+     * @param id id of a town
+     * @return entry of the town, or null if the town is not in this version
+     */
+    Entry entry(int id){
+        return id < 0 || id >= idLimit ? null : find(root, shift, id);
+    }
+
+    /**
+     * Looks up an id in a tree of tables
+     * @param root top table of the tree
+     * @param shift bits of the id below the root's slot
+     * @param id id of a town, which must be covered by the root
+     * @return entry of the town, or null if the tree does not hold it
+     */
+    static Entry find(Object[] root, int shift, int id){
+        Object[] table = root;
+
+        for(int level = shift; level > CHUNK_BITS; level -= CHUNK_BITS){
+            table = (Object[]) table[(id >>> level) & (CHUNK_SIZE - 1)];
+
+            if(table == null){
+                return null;
+            }
+        }
+
+        Entry[] chunk = (Entry[]) table[(id >>> CHUNK_BITS) & (CHUNK_SIZE - 1)];
+        return chunk == null ? null : chunk[id & (CHUNK_SIZE - 1)];
+    }
+
+    /**
+     * Finds the id of a town in this version
+     * @param town town to look up
+     * @return id of the town, or -1 if the town is not in this version
+     */
+    int idOf(Town town){
+        if(town == null){
+            return -1;
+        }
+
+        Integer id = ids.get(town.getName());
+        return id == null || entry(id) == null ? -1 : id;
+    }
+
+    /**
+     * Finds the vertex given name
+     * @param townName name to search
+     * @return Town that was found, or null if the town is not in this version
+     */
+    public Town getVertex(String townName){
+        Integer id = ids.get(townName);
+        Entry entry = id == null ? null : entry(id);
+
+        return entry == null ? null : entry.town;
+    }
+
+    /**
+     * Finds the first road added between two towns that is still in this version
+     * @param sourceVertex source vertex of the edge.
+     * @param destinationVertex target vertex of the edge.
+     * @return edge with matching source and destination, or null if not found
+     */
+    @Override
+    public Road getEdge(Town sourceVertex, Town destinationVertex){
+        int source = idOf(sourceVertex);
+
+        if(source == -1 || destinationVertex == null){
+            return null;
+        }
+
+        Entry entry = entry(source);
+        for(Road road : entry.roads){
+            if(road.getOtherTown(entry.town).equals(destinationVertex)){
+                return road;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Determines if a given edge is in this version
+     * @param sourceVertex source vertex of the edge.
+     * @param destinationVertex target vertex of the edge.
+     * @return true if edge is found, false otherwise
+     */
+    @Override
+    public boolean containsEdge(Town sourceVertex, Town destinationVertex){
+        return getEdge(sourceVertex, destinationVertex) != null;
+    }
+
+    /**
+     * Determines if a vertex is in this version
+     * @param town town to search for
+     * @return true if vertex is found, false otherwise
+     */
+    @Override
+    public boolean containsVertex(Town town){
+        return idOf(town) != -1;
+    }
+
+    /**
+     * Retrieves a set of all edges in this version
+     * @return a set of all edges
+     */
+    @Override
+    public Set<Road> edgeSet(){
+        Set<Road> result = new HashSet<>();
+
+        for(int id = 0; id < idLimit; id++){
+            Entry entry = entry(id);
+
+            if(entry != null){
+                Collections.addAll(result, entry.roads);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Finds all of the roads adjacent to a given vertex
+     * The set is a view of the version's roads, which never change
+     * @param vertex the vertex for which a set of touching edges is to be returned.
+     * @return set of all roads adjacent to the vertex
+     */
+    @Override
+    public Set<Road> edgesOf(Town vertex){
+        if(vertex == null){
+            throw new NullPointerException();
+        }
+
+        int id = idOf(vertex);
+        if(id == -1){
+            throw new IllegalArgumentException();
+        }
+
+        List<Road> roads = Arrays.asList(entry(id).roads);
+
+        return new AbstractSet<Road>() {
+            @Override
+            public Iterator<Road> iterator() {
+                return Collections.unmodifiableList(roads).iterator();
+            }
+
+            @Override
+            public int size() {
+                return roads.size();
+            }
+        };
+    }
+
+    /**
+     * Finds all vertices of this version
+     * @return read-only set of all vertices
+     */
+    @Override
+    public Set<Town> vertexSet(){
+        return new AbstractSet<Town>() {
+            @Override
+            public Iterator<Town> iterator() {
+                return new Iterator<Town>() {
+                    private int next = advance(0);
+
+                    private int advance(int id){
+                        while(id < idLimit && entry(id) == null){
+                            id++;
+                        }
+                        return id;
+                    }
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < idLimit;
+                    }
+
+                    @Override
+                    public Town next() {
+                        if(!hasNext()){
+                            throw new NoSuchElementException();
+                        }
+
+                        Town town = entry(next).town;
+                        next = advance(next + 1);
+                        return town;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return townCount;
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof Town && containsVertex((Town) o);
+            }
+        };
+    }
+
+    /**
+     * Finds the shortest path between two vertexes in this version
+     * @param sourceVertex starting vertex
+     * @param destinationVertex ending vertex
+     * @return an ArrayList containing the shortest path in the same format as Graph.shortestPath
+     */
+    @Override
+    public ArrayList<String> shortestPath(Town sourceVertex, Town destinationVertex){
+        int source = idOf(sourceVertex), destination = idOf(destinationVertex);
+
+        if(source == -1 || destination == -1){
+            return new ArrayList<>();
+        }
+
+        SearchWorkspace workspace = search(source, destination);
+
+        if(!workspace.isSettled(destination)){
+            return new ArrayList<>();
+        }
+
+        List<Road> roads = new ArrayList<>();
+        for(int current = destination; current != source; current = workspace.parent(current)){
+            roads.add(arrivalRoad(workspace, current));
+        }
+        Collections.reverse(roads);
+
+        return Graph.describeRoute(entry(source).town, roads);
+    }
+
+    /**
+     * Finds the shortest distance to all other vertices in this version
+     * @param sourceVertex the vertex to find shortest paths from
+     * @return result holding the distance and predecessor of every reachable town
+     */
+    public ShortestPathResult findShortestPaths(Town sourceVertex){
+        int source = idOf(sourceVertex);
+        Map<Town, Integer> reached = new HashMap<>();
+        Map<Town, Road> arrivalRoads = new HashMap<>();
+
+        if(source == -1){
+            return new ShortestPathResult(sourceVertex, null, reached, arrivalRoads);
+        }
+
+        SearchWorkspace workspace = search(source, -1);
+
+        for(int id = 0; id < idLimit; id++){
+            if(workspace.isSettled(id)){
+                reached.put(entry(id).town, workspace.distance(id));
+
+                if(id != source){
+                    arrivalRoads.put(entry(id).town, arrivalRoad(workspace, id));
+                }
+            }
+        }
+
+        return new ShortestPathResult(entry(source).town, null, reached, arrivalRoads);
+    }
+
+    /**
+     * Not supported, versions are immutable and keep no search results, use findShortestPaths instead
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void dijkstraShortestPath(Town sourceVertex){
+        throw new UnsupportedOperationException("Versions keep no search results, use findShortestPaths");
+    }
+
+    /**
+     * Runs Dijkstra's algorithm in the calling thread's workspace, recording the parent of each town by id
+     * @param source id of the source town
+     * @param target id of the town to stop at, or -1 to settle every reachable town
+     * @return workspace holding the labels of the search
+     */
+    private SearchWorkspace search(int source, int target){
+        SearchWorkspace workspace = SearchWorkspace.forward(idLimit);
+        workspace.relax(source, 0, -1);
+
+        int current;
+        while((current = workspace.settleNext()) != -1 && current != target){
+            Entry entry = entry(current);
+            int distance = workspace.distance(current);
+
+            for(int i = 0; i < entry.roads.length; i++){
+                workspace.relax(entry.targets[i], distance + entry.roads[i].getWeight(), current);
+            }
+        }
+
+        return workspace;
+    }
+
+    /**
+     * Finds the road a settled town was reached through
+     * Only the parent is kept in the workspace, and a label only improves through a strictly shorter road,
+     * so the road is the first one from the parent whose weight makes up the difference in distance
+     * @param workspace workspace of a finished search
+     * @param id id of a settled town other than the source
+     * @return road from the town's parent to the town
+     */
+    private Road arrivalRoad(SearchWorkspace workspace, int id){
+        int parent = workspace.parent(id);
+        Entry entry = entry(parent);
+        int weight = workspace.distance(id) - workspace.distance(parent);
+
+        for(int i = 0; i < entry.roads.length; i++){
+            if(entry.targets[i] == id && entry.roads[i].getWeight() == weight){
+                return entry.roads[i];
+            }
+        }
+
+        throw new IllegalStateException("No road leads to town " + id);
+    }
+
+    /**
+     * Not supported, versions are read-only
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public Road addEdge(Town sourceVertex, Town destinationVertex, int weight, String description){
+        throw new UnsupportedOperationException("Graph versions are read-only");
+    }
+
+    /**
+     * Not supported, versions are read-only
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public boolean addVertex(Town town){
+        throw new UnsupportedOperationException("Graph versions are read-only");
+    }
+
+    /**
+     * Not supported, versions are read-only
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public Road removeEdge(Town sourceVertex, Town destinationVertex, int weight, String description){
+        throw new UnsupportedOperationException("Graph versions are read-only");
+    }
+
+    /**
+     * Not supported, versions are read-only
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public boolean removeVertex(Town town){
+        throw new UnsupportedOperationException("Graph versions are read-only");
+    }
+}
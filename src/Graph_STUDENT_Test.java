@@ -148,4 +148,82 @@ public class Graph_STUDENT_Test {
         assertTrue(shortestDistances.get(towns[2]) == 1);
         assertTrue(shortestDistances.get(towns[3]) == 2);
     }
+
+    @Test
+    public void testDijkstraUnreachable(){
+        Town island = new Town("Island");
+        graph.addVertex(island);
+        graph.dijkstraShortestPath(towns[0]);
+
+        assertTrue(graph.shortestDistances.get(island) == Integer.MAX_VALUE);
+        assertNull(graph.backpointers.get(island));
+        assertNull(graph.backpointers.get(towns[0]));
+        assertEquals(towns[0], graph.backpointers.get(towns[1]));
+    }
+
+    @Test
+    public void testShortestPathMissingTown(){
+        Town island = new Town("Island");
+
+        assertTrue(graph.shortestPath(towns[0], island).isEmpty());
+        graph.addVertex(island);
+        assertTrue(graph.shortestPath(towns[0], island).isEmpty());
+        assertTrue(graph.shortestPath(towns[0], towns[0]).isEmpty());
+    }
+
+    @Test
+    public void testGetVertexAfterRemove(){
+        graph.removeVertex(towns[1]);
+
+        assertNull(graph.getVertex(towns[1].getName()));
+        assertEquals(towns[0], graph.getVertex(towns[0].getName()));
+        assertNull(graph.getVertex("Random Town"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testVertexSetIsReadOnly(){
+        graph.vertexSet().remove(towns[0]);
+    }
+
+    @Test
+    public void testRemoveEdgeBothDirections(){
+        graph.removeEdge(towns[0], towns[1], 1, new String("Road1"));
+
+        assertFalse(graph.containsEdge(towns[0], towns[1]));
+        assertFalse(graph.containsEdge(towns[1], towns[0]));
+        assertEquals(1, graph.edgesOf(towns[1]).size());
+    }
+
+    @Test
+    public void testParallelRoadAfterRemove(){
+        Road bypass = graph.addEdge(towns[0], towns[1], 5, "Bypass");
+
+        assertEquals("Road1", graph.getEdge(towns[1], towns[0]).getName());
+        graph.removeEdge(towns[0], towns[1], 1, "Road1");
+        assertSame(bypass, graph.getEdge(towns[1], towns[0]));
+        assertTrue(graph.containsEdge(towns[0], towns[1]));
+    }
+
+    @Test
+    public void testRemoveVertexDetachesRoads(){
+        Set<Road> roads = graph.edgesOf(towns[1]);
+        graph.removeVertex(towns[0]);
+
+        assertFalse(graph.containsEdge(towns[1], towns[0]));
+        assertEquals(1, roads.size());
+        assertEquals(1, graph.edgesOf(towns[2]).size());
+        assertEquals(1, towns[1].getRoads().size());
+        assertEquals("Road4", towns[2].getRoads().get(0).getName());
+        assertTrue(graph.shortestPath(towns[1], towns[2]).size() == 2);
+    }
+
+    @Test
+    public void testShortestPathWithLargeWeights(){
+        graph.addEdge(towns[0], towns[3], Graph.BUCKET_QUEUE_LIMIT + 1, "Highway");
+
+        ArrayList<String> path = graph.shortestPath(towns[0], towns[3]);
+
+        assertEquals(towns[0].getName() + " via Road3 to " + towns[2].getName() + " 1 mi", path.get(0));
+        assertEquals(towns[2].getName() + " via Road4 to " + towns[3].getName() + " 1 mi", path.get(1));
+    }
 }
@@ -0,0 +1,184 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Binary min heap of vertex ids with decrease-key support
+ * Each id in the range [0, capacity) can be in the heap at most once, and ties
+ * between equal keys are broken in favor of the lower id
+ */
+public class IndexedMinHeap {
+    private int[] heap;
+    private int[] keys;
+    private int[] positions;
+    private int size;
+
+    /**
+     * Constructs an empty heap
+     * @param capacity number of ids the heap can hold, ids must be below this value
+     */
+    public IndexedMinHeap(int capacity){
+        heap = new int[capacity];
+        keys = new int[capacity];
+        positions = new int[capacity];
+        Arrays.fill(positions, -1);
+    }
+
+    /**
+     * Determines if the heap is empty
+     * @return true if no ids are in the heap
+     */
+    public boolean isEmpty(){
+        return size == 0;
+    }
+
+    /**
+     * Gets the number of ids in the heap
+     * @return number of ids in the heap
+     */
+    public int size(){
+        return size;
+    }
+
+    /**
+     * Determines if an id is in the heap
+     * @param id id to search for
+     * @return true if the id is in the heap
+     */
+    public boolean contains(int id){
+        return positions[id] != -1;
+    }
+
+    /**
+     * Gets the key of an id in the heap
+     * @param id id to search for
+     * @return key of the id
+     */
+    public int keyOf(int id){
+        if(!contains(id)){
+            throw new NoSuchElementException("Id " + id + " is not in the heap");
+        }
+
+        return keys[id];
+    }
+
+    /**
+     * Removes every id from the heap
+     * Only the ids still in the heap are touched, so this costs O(size) rather than O(capacity)
+     */
+    public void clear(){
+        for(int i = 0; i < size; i++){
+            positions[heap[i]] = -1;
+        }
+
+        size = 0;
+    }
+
+    /**
+     * Adds an id to the heap, or lowers its key if it is already in the heap
+     * @param id id to add
+     * @param key key of the id
+     * @return true if the heap changed, false if the id already had a key at or below the given key
+     */
+    public boolean offer(int id, int key){
+        if(contains(id)){
+            if(key >= keys[id]){
+                return false;
+            }
+
+            keys[id] = key;
+            siftUp(positions[id]);
+            return true;
+        }
+
+        keys[id] = key;
+        heap[size] = id;
+        positions[id] = size;
+        siftUp(size++);
+
+        return true;
+    }
+
+    /**
+     * Gets the id with the lowest key without removing it
+     * @return id with the lowest key
+     */
+    public int peek(){
+        if(size == 0){
+            throw new NoSuchElementException();
+        }
+
+        return heap[0];
+    }
+
+    /**
+     * Removes the id with the lowest key
+     * @return id with the lowest key
+     */
+    public int poll(){
+        if(size == 0){
+            throw new NoSuchElementException();
+        }
+
+        int min = heap[0];
+        positions[min] = -1;
+        size--;
+
+        if(size > 0){
+            heap[0] = heap[size];
+            positions[heap[0]] = 0;
+            siftDown(0);
+        }
+
+        return min;
+    }
+
+    private boolean less(int a, int b){
+        return keys[a] < keys[b] || (keys[a] == keys[b] && a < b);
+    }
+
+    private void siftUp(int position){
+        int id = heap[position];
+
+        while(position > 0){
+            int parent = (position - 1) >>> 1;
+
+            if(!less(id, heap[parent])){
+                break;
+            }
+
+            heap[position] = heap[parent];
+            positions[heap[position]] = position;
+            position = parent;
+        }
+
+        heap[position] = id;
+        positions[id] = position;
+    }
+
+    private void siftDown(int position){
+        int id = heap[position];
+
+        while(true){
+            int child = 2 * position + 1;
+
+            if(child >= size){
+                break;
+            }
+
+            if(child + 1 < size && less(heap[child + 1], heap[child])){
+                child++;
+            }
+
+            if(!less(heap[child], id)){
+                break;
+            }
+
+            heap[position] = heap[child];
+            positions[heap[position]] = position;
+            position = child;
+        }
+
+        heap[position] = id;
+        positions[id] = position;
+    }
+}
@@ -0,0 +1,50 @@
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class IndexedMinHeapTest {
+    private IndexedMinHeap heap;
+
+    @Before
+    public void setUp() {
+        heap = new IndexedMinHeap(6);
+    }
+
+    @Test
+    public void testPollOrder() {
+        heap.offer(3, 7);
+        heap.offer(0, 4);
+        heap.offer(5, 1);
+        heap.offer(2, 9);
+
+        assertEquals(5, heap.poll());
+        assertEquals(0, heap.poll());
+        assertEquals(3, heap.poll());
+        assertEquals(2, heap.poll());
+        assertTrue(heap.isEmpty());
+    }
+
+    @Test
+    public void testDecreaseKey() {
+        heap.offer(1, 10);
+        heap.offer(2, 5);
+
+        assertTrue(heap.offer(1, 3));
+        assertFalse(heap.offer(2, 8));
+        assertEquals(5, heap.keyOf(2));
+        assertEquals(1, heap.poll());
+        assertFalse(heap.contains(1));
+    }
+
+    @Test
+    public void testTiesFavorLowerId() {
+        heap.offer(4, 2);
+        heap.offer(1, 2);
+        heap.offer(3, 2);
+
+        assertEquals(1, heap.poll());
+        assertEquals(3, heap.poll());
+        assertEquals(4, heap.poll());
+    }
+}
@@ -0,0 +1,300 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Finds the k shortest loopless paths to one destination with Yen's algorithm
+ * The shortest path tree of the destination is built once and shared by every search: its distances are
+ * a consistent A* heuristic for each spur search, since blocking roads and towns can only make a town
+ * farther from the destination, so a spur search walks almost straight to the destination unless it is
+ * detoured. Spur searches for a new path start at the town where it left its parent path (Lawler's
+ * refinement), and candidates wait in a heap until they are needed. The spur searches of one query share
+ * a single set of maps and queue, cleared between spurs
+ */
+public class KShortestPaths {
+    private final Graph graph;
+    private final Town destination;
+    private final ShortestPathResult toDestination;
+
+    /**
+     * Constructs a search toward a destination, building the destination's shortest path tree
+     * @param graph graph to search
+     * @param destination town every path ends at
+     */
+    public KShortestPaths(Graph graph, Town destination){
+        this(graph, destination, graph.findShortestPaths(destination));
+    }
+
+    /**
+     * Constructs a search toward a destination from a tree that is already built
+     * Roads are undirected, so a tree grown from the destination gives every town's distance to it
+     * @param graph graph to search
+     * @param destination town every path ends at
+     * @param toDestination full shortest path tree of the destination in the current graph
+     */
+    KShortestPaths(Graph graph, Town destination, ShortestPathResult toDestination){
+        this.graph = graph;
+        this.destination = destination == null ? null : graph.getVertex(destination.getName());
+        this.toDestination = toDestination;
+    }
+
+    /**
+     * Finds the shortest paths from a town to the destination that visit no town twice
+     * @param sourceVertex town the paths start at
+     * @param k largest number of paths to find
+     * @return up to k paths, shortest first, each in the format of Graph.shortestPath
+     */
+    public List<ArrayList<String>> paths(Town sourceVertex, int k){
+        Town source = sourceVertex == null ? null : graph.getVertex(sourceVertex.getName());
+        List<ArrayList<String>> result = new ArrayList<>();
+
+        for(Path path : find(source, k)){
+            result.add(Graph.describeRoute(source, path.roads));
+        }
+
+        return result;
+    }
+
+    /**
+     * Gets the lengths of the shortest paths from a town to the destination that visit no town twice
+     * @param sourceVertex town the paths start at
+     * @param k largest number of paths to find
+     * @return lengths of up to k paths, shortest first
+     */
+    public List<Integer> lengths(Town sourceVertex, int k){
+        Town source = sourceVertex == null ? null : graph.getVertex(sourceVertex.getName());
+        List<Integer> result = new ArrayList<>();
+
+        for(Path path : find(source, k)){
+            result.add(path.length);
+        }
+
+        return result;
+    }
+
+    private List<Path> find(Town source, int k){
+        List<Path> accepted = new ArrayList<>();
+
+        if(source == null || destination == null || source.equals(destination) || k < 1){
+            return accepted;
+        }
+
+        SpurBuffers buffers = new SpurBuffers();
+        Path first = search(buffers, source, new ArrayList<>(List.of(source)), new ArrayList<>(), 0, 0);
+        if(first == null){
+            return accepted;
+        }
+
+        //Parallel roads are equal to each other, so roads are told apart by identity
+        Map<Road, Integer> roadIds = new IdentityHashMap<>();
+        Set<List<Integer>> seen = new HashSet<>();
+        PriorityQueue<Path> candidates = new PriorityQueue<>();
+        long order = 0;
+
+        accepted.add(first);
+        seen.add(first.key(roadIds));
+
+        while(accepted.size() < k){
+            Path previous = accepted.get(accepted.size() - 1);
+
+            for(int i = previous.deviation; i < previous.roads.size(); i++){
+                buffers.clear();
+
+                for(Path path : accepted){
+                    if(path.roads.size() > i && path.sharesRoot(previous, i)){
+                        buffers.blocked.add(path.roads.get(i));
+                    }
+                }
+
+                List<Town> rootTowns = new ArrayList<>(previous.towns.subList(0, i + 1));
+                List<Road> rootRoads = new ArrayList<>(previous.roads.subList(0, i));
+                int rootLength = 0;
+                for(Road road : rootRoads){
+                    rootLength += road.getWeight();
+                }
+
+                Path candidate = search(buffers, previous.towns.get(i), rootTowns, rootRoads, rootLength, i);
+
+                if(candidate != null && seen.add(candidate.key(roadIds))){
+                    candidate.order = order++;
+                    candidates.add(candidate);
+                }
+            }
+
+            if(candidates.isEmpty()){
+                break;
+            }
+
+            accepted.add(candidates.poll());
+        }
+
+        return accepted;
+    }
+
+    /**
+     * Runs A* from a spur town to the destination, avoiding the root's towns and the blocked roads
+     * @param buffers maps and queue for the search, holding the roads that may not leave the spur town and otherwise empty
+     * @param spur town the search starts from, the last town of the root
+     * @param rootTowns towns from the source to the spur, taken over by the path found
+     * @param rootRoads roads from the source to the spur, taken over by the path found
+     * @param rootLength length of the root roads
+     * @param deviation index of the spur town in the path
+     * @return the root followed by the shortest allowed spur path, or null if there is none
+     */
+    private Path search(SpurBuffers buffers, Town spur, List<Town> rootTowns, List<Road> rootRoads, int rootLength, int deviation){
+        Set<Town> excluded = buffers.excluded;
+        excluded.addAll(rootTowns);
+        excluded.remove(spur);
+
+        Set<Road> blocked = buffers.blocked;
+        Map<Town, Integer> distances = buffers.distances;
+        Map<Town, Road> arrivals = buffers.arrivals;
+        Set<Town> settled = buffers.settled;
+        PriorityQueue<Label> queue = buffers.queue;
+
+        distances.put(spur, 0);
+        queue.add(new Label(spur, 0, toDestination.distanceTo(spur)));
+
+        while(!queue.isEmpty()){
+            Label label = queue.poll();
+            Town town = label.town;
+
+            if(!settled.add(town)){
+                continue;
+            }
+
+            if(town.equals(destination)){
+                LinkedList<Road> spurRoads = new LinkedList<>();
+                LinkedList<Town> spurTowns = new LinkedList<>();
+
+                for(Town current = town; !current.equals(spur); ){
+                    Road road = arrivals.get(current);
+                    spurRoads.addFirst(road);
+                    spurTowns.addFirst(current);
+                    current = road.getOtherTown(current);
+                }
+
+                rootRoads.addAll(spurRoads);
+                rootTowns.addAll(spurTowns);
+
+                return new Path(rootTowns, rootRoads, rootLength + label.distance, deviation);
+            }
+
+            for(Road road : graph.edgesOf(town)){
+                Town next = road.getOtherTown(town);
+
+                if(settled.contains(next) || excluded.contains(next) || (town.equals(spur) && blocked.contains(road))){
+                    continue;
+                }
+
+                int remaining = toDestination.distanceTo(next);
+                int distance = label.distance + road.getWeight();
+                Integer known = distances.get(next);
+
+                if(remaining == Integer.MAX_VALUE || (known != null && known <= distance)){
+                    continue;
+                }
+
+                distances.put(next, distance);
+                arrivals.put(next, road);
+                queue.add(new Label(next, distance, (long) distance + remaining));
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * State of a spur search, kept for every spur of a query so the maps and queue keep their capacity
+     */
+    private static class SpurBuffers {
+        final Set<Road> blocked = Collections.newSetFromMap(new IdentityHashMap<>());
+        final Set<Town> excluded = new HashSet<>();
+        final Map<Town, Integer> distances = new HashMap<>();
+        final Map<Town, Road> arrivals = new HashMap<>();
+        final Set<Town> settled = new HashSet<>();
+
+        //Ties on the estimate go to the deeper label, so an exact estimate walks straight to the destination
+        final PriorityQueue<Label> queue = new PriorityQueue<>((a, b) -> a.estimate != b.estimate ? Long.compare(a.estimate, b.estimate) : Integer.compare(b.distance, a.distance));
+
+        void clear(){
+            blocked.clear();
+            excluded.clear();
+            distances.clear();
+            arrivals.clear();
+            settled.clear();
+            queue.clear();
+        }
+    }
+
+    private static class Label {
+        final Town town;
+        final int distance;
+        final long estimate;
+
+        Label(Town town, int distance, long estimate){
+            this.town = town;
+            this.distance = distance;
+            this.estimate = estimate;
+        }
+    }
+
+    private static class Path implements Comparable<Path> {
+        final List<Town> towns;
+        final List<Road> roads;
+        final int length;
+        final int deviation;
+        long order;
+
+        Path(List<Town> towns, List<Road> roads, int length, int deviation){
+            this.towns = towns;
+            this.roads = roads;
+            this.length = length;
+            this.deviation = deviation;
+        }
+
+        boolean sharesRoot(Path other, int count){
+            for(int i = 0; i < count; i++){
+                if(roads.get(i) != other.roads.get(i)){
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        List<Integer> key(Map<Road, Integer> roadIds){
+            List<Integer> key = new ArrayList<>(roads.size());
+
+            for(Road road : roads){
+                Integer id = roadIds.get(road);
+                if(id == null){
+                    id = roadIds.size();
+                    roadIds.put(road, id);
+                }
+                key.add(id);
+            }
+
+            return key;
+        }
+
+        @Override
+        public int compareTo(Path other){
+            if(length != other.length){
+                return Integer.compare(length, other.length);
+            }
+            if(roads.size() != other.roads.size()){
+                return Integer.compare(roads.size(), other.roads.size());
+            }
+
+            return Long.compare(order, other.order);
+        }
+    }
+}
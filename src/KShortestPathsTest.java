@@ -0,0 +1,116 @@
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class KShortestPathsTest {
+    private TownGraphManager manager;
+    private Graph graph;
+
+    @Before
+    public void setUp() {
+        manager = new TownGraphManager();
+        graph = new Graph();
+
+        for (String town : new String[]{"A", "B", "C", "D", "Island"}) {
+            manager.addTown(town);
+            graph.addVertex(new Town(town));
+        }
+
+        road("A", "B", 1, "AB");
+        road("B", "D", 1, "BD");
+        road("A", "C", 1, "AC");
+        road("C", "D", 1, "CD");
+        road("A", "D", 5, "AD long");
+        road("A", "D", 3, "AD short");
+    }
+
+    //The two routes of 2 miles from A to D, which tie and may come in either order
+    private static Set<List<String>> tiedRoutes() {
+        Set<List<String>> tied = new HashSet<>();
+        tied.add(Arrays.asList("A via AB to B 1 mi", "B via BD to D 1 mi"));
+        tied.add(Arrays.asList("A via AC to C 1 mi", "C via CD to D 1 mi"));
+        return tied;
+    }
+
+    private void road(String town1, String town2, int weight, String name) {
+        manager.addRoad(town1, town2, weight, name);
+        graph.addEdge(new Town(town1), new Town(town2), weight, name);
+    }
+
+    private static void allSimplePaths(Graph graph, Town town, Town destination, Set<Town> visited, int length, List<Integer> lengths) {
+        if (town.equals(destination)) {
+            lengths.add(length);
+            return;
+        }
+
+        for (Road road : graph.edgesOf(town)) {
+            Town next = road.getOtherTown(town);
+            if (visited.add(next)) {
+                allSimplePaths(graph, next, destination, visited, length + road.getWeight(), lengths);
+                visited.remove(next);
+            }
+        }
+    }
+
+    @Test
+    public void testEveryRoute() {
+        //Asking for more routes than there are returns each route once
+        List<ArrayList<String>> routes = manager.getKShortestPaths("A", "D", 10);
+
+        assertEquals(4, routes.size());
+        assertEquals(tiedRoutes(), new HashSet<>(routes.subList(0, 2)));
+        //Parallel roads are separate routes
+        assertEquals(Arrays.asList("A via AD short to D 3 mi"), routes.get(2));
+        assertEquals(Arrays.asList("A via AD long to D 5 mi"), routes.get(3));
+
+        assertEquals(Arrays.asList(2, 2, 3, 5), new KShortestPaths(graph, graph.getVertex("D")).lengths(new Town("A"), 10));
+    }
+
+    @Test
+    public void testFirstRoutes() {
+        List<ArrayList<String>> routes = manager.getKShortestPaths("A", "D", 3);
+
+        assertEquals(3, routes.size());
+        assertTrue(tiedRoutes().contains(routes.get(0)));
+        assertTrue(tiedRoutes().contains(routes.get(1)));
+        assertEquals(Arrays.asList("A via AD short to D 3 mi"), routes.get(2));
+        assertEquals(Arrays.asList(manager.getPath("B", "D")), manager.getKShortestPaths("B", "D", 1));
+
+        manager.enablePathCache(2);
+        assertEquals(routes, manager.getKShortestPaths("A", "D", 3));
+        assertEquals(1, manager.getPathCache().misses());
+    }
+
+    @Test
+    public void testFewerRoutes() {
+        assertTrue(manager.getKShortestPaths("A", "Island", 5).isEmpty());
+        assertTrue(manager.getKShortestPaths("Island", "A", 5).isEmpty());
+        assertTrue(manager.getKShortestPaths("A", "Nowhere", 5).isEmpty());
+        assertTrue(manager.getKShortestPaths("Nowhere", "A", 5).isEmpty());
+        assertTrue(manager.getKShortestPaths("A", "A", 5).isEmpty());
+        assertTrue(manager.getKShortestPaths("A", "D", 0).isEmpty());
+    }
+
+    @Test
+    public void testMatchesEnumeration() {
+        Graph grid = new RoadNetworkGenerator(RoadNetworkGenerator.Shape.GRID, 25, 37).toGraph();
+        Town source = grid.getVertex("Town_0"), destination = grid.getVertex("Town_24");
+        List<Integer> expected = new ArrayList<>();
+        Set<Town> visited = new HashSet<>();
+        visited.add(source);
+        allSimplePaths(grid, source, destination, visited, 0, expected);
+        expected.sort(null);
+
+        List<Integer> lengths = new KShortestPaths(grid, destination).lengths(source, 60);
+
+        assertEquals(expected.subList(0, 60), lengths);
+        assertEquals(grid.findShortestPath(source, destination).getDistance(), (int) lengths.get(0));
+    }
+}
@@ -0,0 +1,489 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Read-only graph that queries a GraphSnapshot file through memory maps instead of loading it
+ * Opening a file only reads its header, and pages are read by the operating system as the
+ * searches touch them, so processes that open the same file share one cached copy of it.
+ * Towns and roads are only created when they are returned. Recently returned towns are kept in a
+ * small cache of fixed size, so a town may be created again once it has left the cache
+ */
+public class MappedGraph extends CsrGraph implements GraphInterface<Town, Road> {
+    /**
+     * Number of towns kept in the cache, each town has one slot it can be kept in
+     */
+    static final int TOWN_CACHE_SIZE = 1024;
+
+    private int townCount, roadCount, arcCount;
+    private MappedInts townNameOffsets, roadNameOffsets;
+    private MappedByteBuffer townNameBytes, roadNameBytes;
+    private MappedInts roadSources, roadDestinations, roadWeights, roadNames;
+    private MappedInts offsets, targets, weights, arcRoads;
+    private MappedInts index;
+    private AtomicReferenceArray<CachedTown> towns;
+    int[] shortestDistances;
+
+    private MappedGraph(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(4 * GraphSnapshot.HEADER_INTS);
+        while(header.hasRemaining()){
+            if(channel.read(header, header.position()) == -1){
+                throw new IOException("Snapshot ended early");
+            }
+        }
+        header.flip();
+
+        if(header.getInt(0) != GraphSnapshot.MAGIC){
+            throw new IOException("Not a graph snapshot");
+        }
+        if(header.getInt(4) < 2 || header.getInt(4) > GraphSnapshot.VERSION){
+            throw new IOException("Snapshot version " + header.getInt(4) + " cannot be mapped, save it again to map it");
+        }
+
+        townCount = header.getInt(8);
+        roadCount = header.getInt(12);
+        arcCount = header.getInt(16);
+        int nameCount = header.getInt(20);
+
+        long position = 4L * GraphSnapshot.HEADER_INTS;
+        townNameOffsets = new MappedInts(channel, position, townCount + 1);
+        position += 4L * (townCount + 1);
+        townNameBytes = mapBytes(channel, position, townNameOffsets.get(townCount));
+        position += padded(townNameOffsets.get(townCount));
+
+        roadNameOffsets = new MappedInts(channel, position, nameCount + 1);
+        position += 4L * (nameCount + 1);
+        roadNameBytes = mapBytes(channel, position, roadNameOffsets.get(nameCount));
+        position += padded(roadNameOffsets.get(nameCount));
+
+        roadSources = new MappedInts(channel, position, roadCount);
+        roadDestinations = new MappedInts(channel, position += 4L * roadCount, roadCount);
+        roadWeights = new MappedInts(channel, position += 4L * roadCount, roadCount);
+        roadNames = new MappedInts(channel, position += 4L * roadCount, roadCount);
+        offsets = new MappedInts(channel, position += 4L * roadCount, townCount + 1);
+        targets = new MappedInts(channel, position += 4L * (townCount + 1), arcCount);
+        weights = new MappedInts(channel, position += 4L * arcCount, arcCount);
+        arcRoads = new MappedInts(channel, position += 4L * arcCount, arcCount);
+        index = new MappedInts(channel, position += 4L * arcCount, GraphSnapshot.indexCapacity(townCount));
+
+        towns = new AtomicReferenceArray<>(Math.max(1, Math.min(townCount, TOWN_CACHE_SIZE)));
+    }
+
+    /**
+     * Maps a snapshot written by GraphSnapshot.save or TownGraphManager.saveSnapshot
+     * The file must not change while the graph is in use, the maps are released when the graph is garbage collected
+     * @param file snapshot to map
+     * @return graph reading from the file
+     * @throws IOException if the file cannot be mapped or is not a snapshot
+     */
+    public static MappedGraph open(File file) throws IOException {
+        try(RandomAccessFile input = new RandomAccessFile(file, "r"); FileChannel channel = input.getChannel()){
+            return new MappedGraph(channel);
+        }
+    }
+
+    @Override
+    public int vertexCount(){
+        return townCount;
+    }
+
+    @Override
+    public int arcCount(){
+        return arcCount;
+    }
+
+    /**
+     * Gets the number of roads
+     * @return number of roads
+     */
+    public int roadCount(){
+        return roadCount;
+    }
+
+    @Override
+    public int idOf(String townName){
+        if(townName == null){
+            return -1;
+        }
+
+        byte[] name = townName.getBytes(StandardCharsets.UTF_8);
+        int capacity = index.size();
+
+        for(int slot = GraphSnapshot.indexSlot(townName, capacity); ; slot = (slot + 1) & (capacity - 1)){
+            int entry = index.get(slot);
+
+            if(entry == 0){
+                return -1;
+            }
+            if(nameEquals(entry - 1, name)){
+                return entry - 1;
+            }
+        }
+    }
+
+    @Override
+    public Town getTown(int id){
+        if(id < 0 || id >= townCount){
+            throw new IndexOutOfBoundsException("Town id " + id + " out of bounds for " + townCount + " towns");
+        }
+
+        int slot = id % towns.length();
+        CachedTown cached = towns.get(slot);
+
+        if(cached == null || cached.id != id){
+            cached = new CachedTown(id, new Town(townName(id)));
+            towns.set(slot, cached);
+        }
+
+        return cached.town;
+    }
+
+    @Override
+    int firstArc(int town){
+        return offsets.get(town);
+    }
+
+    @Override
+    int arcTarget(int arc){
+        return targets.get(arc);
+    }
+
+    @Override
+    int arcWeight(int arc){
+        return weights.get(arc);
+    }
+
+    @Override
+    String arcName(int arc){
+        return roadName(arcRoads.get(arc));
+    }
+
+    @Override
+    String townName(int id){
+        return decode(townNameBytes, townNameOffsets.get(id), townNameOffsets.get(id + 1));
+    }
+
+    private String roadName(int road){
+        int name = roadNames.get(road);
+        return name == -1 ? null : decode(roadNameBytes, roadNameOffsets.get(name), roadNameOffsets.get(name + 1));
+    }
+
+    private Road road(int road){
+        return new Road(getTown(roadSources.get(road)), getTown(roadDestinations.get(road)), roadWeights.get(road), roadName(road));
+    }
+
+    private boolean nameEquals(int id, byte[] name){
+        int start = townNameOffsets.get(id);
+
+        if(townNameOffsets.get(id + 1) - start != name.length){
+            return false;
+        }
+
+        for(int i = 0; i < name.length; i++){
+            if(townNameBytes.get(start + i) != name[i]){
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Finds a road between two towns
+     * @param sourceVertex town at one end
+     * @param destinationVertex town at the other end
+     * @return the first road added between the towns, or null if there is none
+     */
+    @Override
+    public Road getEdge(Town sourceVertex, Town destinationVertex){
+        if(sourceVertex == null || destinationVertex == null){
+            return null;
+        }
+
+        int source = idOf(sourceVertex.getName());
+        int destination = idOf(destinationVertex.getName());
+        int arc = source == -1 || destination == -1 ? -1 : findArc(source, destination);
+
+        return arc == -1 ? null : road(arcRoads.get(arc));
+    }
+
+    /**
+     * Determines if two towns are joined by a road
+     * @param sourceVertex town at one end
+     * @param destinationVertex town at the other end
+     * @return true if a road joins the towns
+     */
+    @Override
+    public boolean containsEdge(Town sourceVertex, Town destinationVertex){
+        if(sourceVertex == null || destinationVertex == null){
+            return false;
+        }
+
+        int source = idOf(sourceVertex.getName());
+        int destination = idOf(destinationVertex.getName());
+
+        return source != -1 && destination != -1 && findArc(source, destination) != -1;
+    }
+
+    /**
+     * Gets every road in the graph
+     * @return read-only set that creates the roads as it is iterated
+     */
+    @Override
+    public Set<Road> edgeSet(){
+        return new AbstractSet<Road>() {
+            @Override
+            public Iterator<Road> iterator(){
+                return new Iterator<Road>() {
+                    private int next;
+
+                    @Override
+                    public boolean hasNext(){
+                        return next < roadCount;
+                    }
+
+                    @Override
+                    public Road next(){
+                        if(!hasNext()){
+                            throw new NoSuchElementException();
+                        }
+                        return road(next++);
+                    }
+                };
+            }
+
+            @Override
+            public int size(){
+                return roadCount;
+            }
+
+            @Override
+            public boolean contains(Object o){
+                if(!(o instanceof Road)){
+                    return false;
+                }
+
+                Road road = (Road) o;
+                int source = idOf(road.getSource().getName());
+                int destination = idOf(road.getDestination().getName());
+
+                if(source == -1 || destination == -1){
+                    return false;
+                }
+
+                //Towns may be created again after leaving the cache, so roads are matched by value rather than by town identity
+                for(int arc = firstArc(source); arc < firstArc(source + 1); arc++){
+                    if(arcTarget(arc) == destination && arcWeight(arc) == road.getWeight() && Objects.equals(arcName(arc), road.getName())){
+                        return true;
+                    }
+                }
+
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Gets the roads of a town
+     * @param vertex town to get the roads of
+     * @return read-only set that creates the roads as it is iterated
+     */
+    @Override
+    public Set<Road> edgesOf(Town vertex){
+        if(vertex == null){
+            throw new NullPointerException();
+        }
+
+        int town = idOf(vertex.getName());
+        if(town == -1){
+            throw new IllegalArgumentException();
+        }
+
+        return new AbstractSet<Road>() {
+            @Override
+            public Iterator<Road> iterator(){
+                return new Iterator<Road>() {
+                    private int next = firstArc(town);
+
+                    @Override
+                    public boolean hasNext(){
+                        return next < firstArc(town + 1);
+                    }
+
+                    @Override
+                    public Road next(){
+                        if(!hasNext()){
+                            throw new NoSuchElementException();
+                        }
+                        return road(arcRoads.get(next++));
+                    }
+                };
+            }
+
+            @Override
+            public int size(){
+                return firstArc(town + 1) - firstArc(town);
+            }
+        };
+    }
+
+    /**
+     * Gets every town in the graph
+     * @return read-only set of the towns
+     */
+    @Override
+    public Set<Town> vertexSet(){
+        return new AbstractSet<Town>() {
+            @Override
+            public Iterator<Town> iterator(){
+                return new Iterator<Town>() {
+                    private int next;
+
+                    @Override
+                    public boolean hasNext(){
+                        return next < townCount;
+                    }
+
+                    @Override
+                    public Town next(){
+                        if(!hasNext()){
+                            throw new NoSuchElementException();
+                        }
+                        return getTown(next++);
+                    }
+                };
+            }
+
+            @Override
+            public int size(){
+                return townCount;
+            }
+
+            @Override
+            public boolean contains(Object o){
+                return o instanceof Town && containsVertex((Town) o);
+            }
+        };
+    }
+
+    /**
+     * Finds the shortest distance from a town to every town, storing them in shortestDistances by town id
+     * @param sourceVertex the town to measure from
+     */
+    @Override
+    public void dijkstraShortestPath(Town sourceVertex){
+        shortestDistances = shortestDistances(sourceVertex);
+    }
+
+    /**
+     * Not supported, mapped graphs are read-only
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public Road addEdge(Town sourceVertex, Town destinationVertex, int weight, String description){
+        throw new UnsupportedOperationException("Mapped graphs are read-only");
+    }
+
+    /**
+     * Not supported, mapped graphs are read-only
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public boolean addVertex(Town town){
+        throw new UnsupportedOperationException("Mapped graphs are read-only");
+    }
+
+    /**
+     * Not supported, mapped graphs are read-only
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public Road removeEdge(Town sourceVertex, Town destinationVertex, int weight, String description){
+        throw new UnsupportedOperationException("Mapped graphs are read-only");
+    }
+
+    /**
+     * Not supported, mapped graphs are read-only
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public boolean removeVertex(Town town){
+        throw new UnsupportedOperationException("Mapped graphs are read-only");
+    }
+
+    private static long padded(int length){
+        return (length + 3) & ~3L;
+    }
+
+    private static MappedByteBuffer mapBytes(FileChannel channel, long position, int length) throws IOException {
+        checkBounds(channel, position, length);
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+    }
+
+    private static void checkBounds(FileChannel channel, long position, long length) throws IOException {
+        if(length < 0 || position + length > channel.size()){
+            throw new IOException("Snapshot is truncated or corrupt");
+        }
+    }
+
+    private static String decode(MappedByteBuffer bytes, int start, int end){
+        byte[] name = new byte[end - start];
+        bytes.get(start, name);
+        return new String(name, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Town held in a cache slot along with the id it was created for
+     */
+    private static class CachedTown {
+        private final int id;
+        private final Town town;
+
+        private CachedTown(int id, Town town){
+            this.id = id;
+            this.town = town;
+        }
+    }
+
+    /**
+     * Int array read from a file, mapped in pieces because a single map cannot pass 2 GB
+     */
+    private static class MappedInts {
+        private static final int PIECE_SHIFT = 28;
+        private static final int PIECE_MASK = (1 << PIECE_SHIFT) - 1;
+
+        private IntBuffer[] pieces;
+        private int size;
+
+        private MappedInts(FileChannel channel, long position, int size) throws IOException {
+            checkBounds(channel, position, 4L * size);
+            this.size = size;
+            pieces = new IntBuffer[Math.max(1, (int) (((long) size + PIECE_MASK) >>> PIECE_SHIFT))];
+
+            for(int i = 0; i < pieces.length; i++){
+                long start = (long) i << PIECE_SHIFT;
+                long length = Math.min(size - start, 1L << PIECE_SHIFT);
+                pieces[i] = channel.map(FileChannel.MapMode.READ_ONLY, position + 4 * start, 4 * length).asIntBuffer();
+            }
+        }
+
+        private int get(int index){
+            return pieces[index >>> PIECE_SHIFT].get(index & PIECE_MASK);
+        }
+
+        private int size(){
+            return size;
+        }
+    }
+}
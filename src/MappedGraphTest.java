@@ -0,0 +1,123 @@
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class MappedGraphTest {
+    private Graph graph;
+    private MappedGraph mapped;
+
+    @Before
+    public void setUp() throws IOException {
+        graph = new RoadNetworkGenerator(RoadNetworkGenerator.Shape.GEOMETRIC, 2000, 12).toGraph();
+        Town first = graph.getVertex("Town_0");
+        Town special = new Town("K\u00f8benhavn");
+        graph.addVertex(special);
+        graph.addEdge(first, special, 3, "\u00d8resund");
+        graph.addEdge(special, special, 1, null);
+
+        File file = File.createTempFile("graph", ".snapshot");
+        file.deleteOnExit();
+        GraphSnapshot.save(graph, file);
+        mapped = MappedGraph.open(file);
+    }
+
+    @Test
+    public void testLookups() {
+        assertEquals(graph.vertexSet().size(), mapped.vertexCount());
+        assertEquals(graph.edgeSet().size(), mapped.roadCount());
+        assertTrue(mapped.containsVertex(new Town("K\u00f8benhavn")));
+        assertFalse(mapped.containsVertex(new Town("Town_2000")));
+        assertEquals(-1, mapped.idOf("Town_2000"));
+        assertSame(mapped.getTown(5), mapped.getTown(5));
+        //A town pushed out of its cache slot is created again with the same name
+        Town cached = mapped.getTown(5);
+        assertNotEquals(cached, mapped.getTown(5 + MappedGraph.TOWN_CACHE_SIZE));
+        assertEquals(cached, mapped.getTown(5));
+
+        for (Town town : graph.vertexSet()) {
+            assertEquals(town.getName(), mapped.getTown(mapped.idOf(town.getName())).getName());
+
+            for (Road road : graph.edgesOf(town)) {
+                Town other = road.getOtherTown(town);
+                Road expected = graph.getEdge(town, other);
+                Road actual = mapped.getEdge(town, other);
+
+                assertTrue(mapped.containsEdge(town, other));
+                assertEquals(expected.getName(), actual.getName());
+                assertEquals(expected.getWeight(), actual.getWeight());
+                assertEquals(expected.getSource().getName(), actual.getSource().getName());
+            }
+        }
+    }
+
+    @Test
+    public void testSets() {
+        Town special = new Town("K\u00f8benhavn");
+        List<String> expected = new ArrayList<>(), actual = new ArrayList<>();
+        for (Road road : graph.edgesOf(special)) {
+            expected.add(road.getName());
+        }
+        for (Road road : mapped.edgesOf(special)) {
+            actual.add(road.getName());
+        }
+        assertEquals(expected, actual);
+
+        Set<Road> roads = mapped.edgeSet();
+        int count = 0;
+        for (Road road : roads) {
+            assertTrue(roads.contains(road));
+            count++;
+        }
+        assertEquals(roads.size(), count);
+        //Roads are matched by their towns, weight and name since towns are created again once they leave the cache
+        assertTrue(roads.contains(new Road(new Town("Town_0"), special, 3, "\u00d8resund")));
+        assertFalse(roads.contains(new Road(new Town("Town_0"), special, 4, "\u00d8resund")));
+        assertFalse(roads.contains(new Road(new Town("Town_0"), special, 3, "Bridge")));
+        assertFalse(roads.contains(new Road(new Town("Town_0"), new Town("Nowhere"), 3, "\u00d8resund")));
+
+        assertEquals(graph.vertexSet(), mapped.vertexSet());
+    }
+
+    @Test
+    public void testShortestPaths() {
+        for (int i = 0; i < 40; i++) {
+            Town source = new Town(RoadNetworkGenerator.townName(i * 37));
+            Town destination = new Town(RoadNetworkGenerator.townName(1999 - i * 41));
+
+            assertEquals(graph.shortestPath(source, destination), mapped.shortestPath(source, destination));
+            assertEquals(TestRoutes.length(graph.shortestPath(source, destination)), TestRoutes.length(mapped.shortestPath(source, destination, SearchMode.BIDIRECTIONAL)));
+            ArrayList<String> path = graph.shortestPath(source, destination);
+            assertEquals(path.isEmpty() ? Integer.MAX_VALUE : TestRoutes.length(path), mapped.distance(source, destination));
+        }
+
+        assertEquals(1, mapped.shortestPath(new Town("Town_0"), new Town("K\u00f8benhavn")).size());
+
+        Town source = new Town("Town_7");
+        graph.dijkstraShortestPath(source);
+        mapped.dijkstraShortestPath(source);
+        for (Town town : graph.vertexSet()) {
+            assertEquals((int) graph.shortestDistances.get(town), mapped.shortestDistances[mapped.idOf(town.getName())]);
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testReadOnly() {
+        mapped.addVertex(new Town("Town_2000"));
+    }
+
+    @Test(expected = IOException.class)
+    public void testNotASnapshot() throws IOException {
+        File file = File.createTempFile("graph", ".txt");
+        file.deleteOnExit();
+        new RoadNetworkGenerator(RoadNetworkGenerator.Shape.GRID, 100, 1).write(file);
+
+        MappedGraph.open(file);
+    }
+}
@@ -0,0 +1,411 @@
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of the mutations made to a TownGraphManager
+ * The file starts with the generation of the snapshot the log applies to, followed by records that
+ * each hold their length, a CRC32 of their contents, a type and the arguments of the mutation.
+ * Appending only encodes a record into memory and returns its sequence number. Records reach the
+ * disk in batches: whoever calls sync first writes everything appended so far and forces it once,
+ * while later callers wait for that write instead of forcing again. With a commit interval a
+ * background thread syncs on a fixed interval, so the mutations of one interval share a single
+ * force. Without one the caller syncs each sequence itself, and callers that append while a force
+ * is under way share the next one
+ */
+class MutationLog implements Closeable {
+    static final int MAGIC = 0x54474D4C;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+
+    static final byte ADD_TOWN = 1;
+    static final byte ADD_ROAD = 2;
+    static final byte DELETE_ROAD = 3;
+    static final byte DELETE_TOWN = 4;
+
+    private FileChannel channel;
+    private ScheduledExecutorService flusher;
+    private CRC32 crc;
+
+    private ByteBuffer pending;
+    private long appended, durable, forces;
+    private boolean syncing, closed;
+    private IOException failure;
+
+    /**
+     * Opens an existing log for appending
+     * @param file log created by create
+     * @param commitIntervalMillis longest time a record waits in memory before it is synced,
+     * or 0 to leave syncing each record to whoever appended it
+     * @throws IOException if the file cannot be opened
+     */
+    MutationLog(File file, long commitIntervalMillis) throws IOException {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        pending = ByteBuffer.allocate(1 << 16);
+        crc = new CRC32();
+
+        if(commitIntervalMillis > 0){
+            flusher = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "mutation-log-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::syncQuietly, commitIntervalMillis, commitIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Creates an empty log for a snapshot generation, replacing any existing log in one step
+     * @param file log to create
+     * @param generation generation of the snapshot the log applies to
+     * @throws IOException if the file cannot be written
+     */
+    static void create(File file, long generation) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+
+        try(FileOutputStream output = new FileOutputStream(temp); FileChannel created = output.getChannel()){
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(VERSION).putLong(generation);
+            header.flip();
+            while(header.hasRemaining()){
+                created.write(header);
+            }
+            created.force(true);
+        }
+
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Reads the snapshot generation a log applies to
+     * @param file log to read
+     * @return generation of the snapshot
+     * @throws IOException if the file cannot be read or is not a mutation log
+     */
+    static long generationOf(File file) throws IOException {
+        try(DataInputStream input = new DataInputStream(new FileInputStream(file))){
+            if(input.readInt() != MAGIC || input.readInt() != VERSION){
+                throw new IOException(file + " is not a mutation log");
+            }
+
+            return input.readLong();
+        } catch(EOFException e){
+            throw new IOException(file + " is not a mutation log", e);
+        }
+    }
+
+    /**
+     * Applies every complete record of a log to a manager
+     * A record cut short or damaged by a crash ends the log, and the file is truncated to the last good record
+     * @param file log to replay
+     * @param target manager to apply the mutations to
+     * @return number of records applied
+     * @throws IOException if the file cannot be read
+     */
+    static long replay(File file, TownGraphManagerInterface target) throws IOException {
+        long length = file.length();
+        long position = HEADER_BYTES;
+        long records = 0;
+        CRC32 crc = new CRC32();
+
+        try(DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16))){
+            input.skipNBytes(HEADER_BYTES);
+
+            while(length - position >= 8){
+                int size = input.readInt();
+                int checksum = input.readInt();
+
+                if(size < 1 || size > length - position - 8){
+                    break;
+                }
+
+                byte[] record = new byte[size];
+                input.readFully(record);
+                crc.reset();
+                crc.update(record, 0, size);
+
+                if((int) crc.getValue() != checksum){
+                    break;
+                }
+
+                apply(ByteBuffer.wrap(record), target);
+                position += 8 + size;
+                records++;
+            }
+        }
+
+        if(position < length){
+            try(RandomAccessFile output = new RandomAccessFile(file, "rw")){
+                output.getChannel().truncate(position);
+                output.getChannel().force(true);
+            }
+        }
+
+        return records;
+    }
+
+    private static void apply(ByteBuffer record, TownGraphManagerInterface target){
+        byte type = record.get();
+
+        switch(type){
+            case ADD_TOWN:
+                target.addTown(readString(record));
+                break;
+            case ADD_ROAD: {
+                String town1 = readString(record), town2 = readString(record);
+                int weight = record.getInt();
+                target.addRoad(town1, town2, weight, readString(record));
+                break;
+            }
+            case DELETE_ROAD: {
+                String town1 = readString(record), town2 = readString(record);
+                target.deleteRoadConnection(town1, town2, readString(record));
+                break;
+            }
+            case DELETE_TOWN:
+                target.deleteTown(readString(record));
+                break;
+            default:
+                throw new IllegalStateException("Unknown mutation type " + type);
+        }
+    }
+
+    private static String readString(ByteBuffer record){
+        int length = record.getInt();
+
+        if(length == -1){
+            return null;
+        }
+
+        String value = new String(record.array(), record.position(), length, StandardCharsets.UTF_8);
+        record.position(record.position() + length);
+        return value;
+    }
+
+    /**
+     * Records that a town was added
+     * @param name name of the town
+     * @return sequence number of the record
+     */
+    long addTown(String name){
+        return append(ADD_TOWN, name, null, 0, null);
+    }
+
+    /**
+     * Records that a road was added
+     * @param town1 name of town 1
+     * @param town2 name of town 2
+     * @param weight weight of the road
+     * @param roadName name of the road
+     * @return sequence number of the record
+     */
+    long addRoad(String town1, String town2, int weight, String roadName){
+        return append(ADD_ROAD, town1, town2, weight, roadName);
+    }
+
+    /**
+     * Records that a road was deleted
+     * @param town1 name of town 1
+     * @param town2 name of town 2
+     * @param roadName name of the road
+     * @return sequence number of the record
+     */
+    long deleteRoadConnection(String town1, String town2, String roadName){
+        return append(DELETE_ROAD, town1, town2, 0, roadName);
+    }
+
+    /**
+     * Records that a town was deleted
+     * @param name name of the town
+     * @return sequence number of the record
+     */
+    long deleteTown(String name){
+        return append(DELETE_TOWN, name, null, 0, null);
+    }
+
+    private long append(byte type, String first, String second, int weight, String third){
+        long sequence;
+
+        synchronized(this){
+            if(failure != null){
+                throw new UncheckedIOException("Mutation log could not be written", failure);
+            }
+            if(closed){
+                throw new UncheckedIOException(new IOException("Mutation log is closed"));
+            }
+
+            int start = pending.position();
+            reserve(8);
+            pending.position(start + 8);
+
+            reserve(1);
+            pending.put(type);
+            putString(first);
+            if(type == ADD_ROAD || type == DELETE_ROAD){
+                putString(second);
+            }
+            if(type == ADD_ROAD){
+                reserve(4);
+                pending.putInt(weight);
+            }
+            if(type == ADD_ROAD || type == DELETE_ROAD){
+                putString(third);
+            }
+
+            int size = pending.position() - start - 8;
+            crc.reset();
+            crc.update(pending.array(), start + 8, size);
+            pending.putInt(start, size);
+            pending.putInt(start + 4, (int) crc.getValue());
+
+            sequence = ++appended;
+        }
+
+        return sequence;
+    }
+
+    private void putString(String value){
+        if(value == null){
+            reserve(4);
+            pending.putInt(-1);
+            return;
+        }
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        reserve(4 + bytes.length);
+        pending.putInt(bytes.length);
+        pending.put(bytes);
+    }
+
+    private void reserve(int bytes){
+        if(pending.remaining() < bytes){
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(2 * pending.capacity(), pending.position() + bytes));
+            pending.flip();
+            pending = grown.put(pending);
+        }
+    }
+
+    /**
+     * Makes every record appended so far durable
+     * @throws IOException if the log cannot be written
+     */
+    void sync() throws IOException {
+        long target;
+        synchronized(this){
+            target = appended;
+        }
+
+        sync(target);
+    }
+
+    /**
+     * Waits until a record is durable, writing and forcing the pending batch if no other thread is already doing so
+     * @param sequence sequence number returned when the record was appended
+     * @throws IOException if the log cannot be written
+     */
+    void sync(long sequence) throws IOException {
+        ByteBuffer batch;
+        long batchEnd;
+
+        synchronized(this){
+            while(syncing && durable < sequence){
+                try {
+                    wait();
+                } catch(InterruptedException e){
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while waiting for the mutation log", e);
+                }
+            }
+
+            if(failure != null){
+                throw failure;
+            }
+            if(durable >= sequence){
+                return;
+            }
+
+            syncing = true;
+            batch = pending;
+            batchEnd = appended;
+            pending = ByteBuffer.allocate(batch.capacity());
+        }
+
+        IOException error = null;
+        try {
+            batch.flip();
+            while(batch.hasRemaining()){
+                channel.write(batch);
+            }
+            channel.force(false);
+        } catch(IOException e){
+            error = e;
+        }
+
+        synchronized(this){
+            syncing = false;
+            if(error == null){
+                durable = batchEnd;
+                forces++;
+            } else {
+                failure = error;
+            }
+            notifyAll();
+        }
+
+        if(error != null){
+            throw error;
+        }
+    }
+
+    /**
+     * Gets the number of times the log was forced to the disk
+     * @return number of forces
+     */
+    synchronized long forceCount(){
+        return forces;
+    }
+
+    private void syncQuietly(){
+        try {
+            sync();
+        } catch(IOException e){
+            //Kept in failure and thrown to the next caller
+        }
+    }
+
+    /**
+     * Syncs every appended record and closes the file
+     * @throws IOException if the log cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        if(flusher != null){
+            flusher.shutdown();
+        }
+        synchronized(this){
+            closed = true;
+        }
+
+        try {
+            sync();
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.Map;
+
+/**
+ * Immutable result of a search grown from several sources at once
+ * Every town has a dense id, and the nearest source, distance, predecessor and arriving road of each
+ * town are kept in arrays indexed by that id instead of in maps
+ */
+public final class NearestSources {
+    private final Town[] sources;
+    private final Town[] towns;
+    private final Map<Town, Integer> ids;
+    private final int[] nearest;
+    private final int[] distances;
+    private final int[] predecessors;
+    private final Road[] arrivals;
+
+    /**
+     * Constructs a result from the labels of a finished search, taking over the arrays
+     * @param sources towns the search started from
+     * @param towns towns by id
+     * @param ids id of every town
+     * @param nearest index into sources of each town's nearest source, -1 for towns not reached
+     * @param distances distance of each town from its nearest source, Integer.MAX_VALUE for towns not reached
+     * @param predecessors id of the town before each town, -1 for sources and towns not reached
+     * @param arrivals road each town was reached through, null for sources and towns not reached
+     */
+    NearestSources(Town[] sources, Town[] towns, Map<Town, Integer> ids, int[] nearest, int[] distances, int[] predecessors, Road[] arrivals){
+        this.sources = sources;
+        this.towns = towns;
+        this.ids = ids;
+        this.nearest = nearest;
+        this.distances = distances;
+        this.predecessors = predecessors;
+        this.arrivals = arrivals;
+    }
+
+    /**
+     * Gets the number of towns, ids run from 0 to townCount() - 1
+     * @return number of towns
+     */
+    public int townCount(){
+        return towns.length;
+    }
+
+    /**
+     * Gets the number of sources the search started from
+     * @return number of sources
+     */
+    public int sourceCount(){
+        return sources.length;
+    }
+
+    /**
+     * Gets a source by its index
+     * @param index index of the source
+     * @return source town
+     */
+    public Town getSource(int index){
+        return sources[index];
+    }
+
+    /**
+     * Gets the town with an id
+     * @param id id of the town
+     * @return town with the id
+     */
+    public Town getTown(int id){
+        return towns[id];
+    }
+
+    /**
+     * Finds the id of a town
+     * @param town town to look up
+     * @return id of the town, or -1 if it was not in the graph
+     */
+    public int idOf(Town town){
+        Integer id = town == null ? null : ids.get(town);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Gets the nearest source of a town
+     * @param id id of the town
+     * @return index of the nearest source, or -1 if no source reaches the town
+     */
+    public int nearest(int id){
+        return nearest[id];
+    }
+
+    /**
+     * Gets the distance from a town's nearest source
+     * @param id id of the town
+     * @return distance, or Integer.MAX_VALUE if no source reaches the town
+     */
+    public int distance(int id){
+        return distances[id];
+    }
+
+    /**
+     * Gets the town before a town on the path from its nearest source
+     * @param id id of the town
+     * @return id of the previous town, or -1 for sources and towns that were not reached
+     */
+    public int predecessor(int id){
+        return predecessors[id];
+    }
+
+    /**
+     * Gets the nearest source of a town
+     * @param town town to check
+     * @return the nearest source, or null if no source reaches the town
+     */
+    public Town nearestSourceOf(Town town){
+        int id = idOf(town);
+        return id == -1 || nearest[id] == -1 ? null : sources[nearest[id]];
+    }
+
+    /**
+     * Gets the distance from a town's nearest source
+     * @param town town to check
+     * @return distance, or Integer.MAX_VALUE if no source reaches the town
+     */
+    public int distanceTo(Town town){
+        int id = idOf(town);
+        return id == -1 ? Integer.MAX_VALUE : distances[id];
+    }
+
+    /**
+     * Builds the path from a town's nearest source to the town
+     * @param town town to build the path to
+     * @return an ArrayList in the format of Graph.shortestPath, empty if no source reaches the town
+     */
+    public ArrayList<String> pathTo(Town town){
+        int id = idOf(town);
+
+        if(id == -1 || nearest[id] == -1){
+            return new ArrayList<>();
+        }
+
+        LinkedList<Road> roads = new LinkedList<>();
+        for(int current = id; predecessors[current] != -1; current = predecessors[current]){
+            roads.addFirst(arrivals[current]);
+        }
+
+        return Graph.describeRoute(sources[nearest[id]], roads);
+    }
+}
@@ -0,0 +1,150 @@
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class NearestSourcesTest {
+    private Graph graph;
+    private Town first, second;
+
+    @Before
+    public void setUp() {
+        graph = new Graph();
+        for (String town : new String[]{"S1", "S2", "A", "B", "C", "M", "Island"}) {
+            graph.addVertex(new Town(town));
+        }
+        first = new Town("S1");
+        second = new Town("S2");
+
+        road("S1", "A", 2, "S1A");
+        road("A", "B", 3, "AB");
+        road("B", "S2", 2, "BS2");
+        road("S1", "M", 4, "S1M");
+        road("S2", "M", 4, "S2M");
+        road("S2", "C", 5, "S2C long");
+        road("S2", "C", 1, "S2C short");
+    }
+
+    private void road(String town1, String town2, int weight, String name) {
+        graph.addEdge(new Town(town1), new Town(town2), weight, name);
+    }
+
+    @Test
+    public void testNearestSourceOfEachTown() {
+        NearestSources result = graph.findNearestSources(Arrays.asList(first, second));
+
+        assertEquals(7, result.townCount());
+        assertEquals(2, result.sourceCount());
+
+        assertEquals(first, result.nearestSourceOf(new Town("A")));
+        assertEquals(2, result.distanceTo(new Town("A")));
+        assertEquals(Arrays.asList("S1 via S1A to A 2 mi"), result.pathTo(new Town("A")));
+
+        assertEquals(second, result.nearestSourceOf(new Town("B")));
+        assertEquals(2, result.distanceTo(new Town("B")));
+        assertEquals(Arrays.asList("S2 via BS2 to B 2 mi"), result.pathTo(new Town("B")));
+
+        //The shorter of the two parallel roads
+        assertEquals(second, result.nearestSourceOf(new Town("C")));
+        assertEquals(Arrays.asList("S2 via S2C short to C 1 mi"), result.pathTo(new Town("C")));
+
+        //Both sources are 4 miles away, either one is nearest and the path leads from it
+        Town tied = result.nearestSourceOf(new Town("M"));
+        assertEquals(4, result.distanceTo(new Town("M")));
+        assertEquals(Arrays.asList(tied.getName() + " via " + tied.getName() + "M to M 4 mi"), result.pathTo(new Town("M")));
+
+        int id = result.idOf(first);
+        assertEquals(0, result.nearest(id));
+        assertEquals(0, result.distance(id));
+        assertEquals(-1, result.predecessor(id));
+        assertTrue(result.pathTo(first).isEmpty());
+        assertEquals(result.idOf(new Town("S1")), result.predecessor(result.idOf(new Town("A"))));
+    }
+
+    @Test
+    public void testSourcesAndUnreachedTowns() {
+        NearestSources result = graph.findNearestSources(Arrays.asList(second, new Town("Nowhere"), first, second));
+
+        assertEquals(2, result.sourceCount());
+        assertEquals(second, result.getSource(0));
+        assertEquals(first, result.getSource(1));
+        assertEquals(1, result.nearest(result.idOf(first)));
+
+        Town island = new Town("Island");
+        assertEquals(-1, result.nearest(result.idOf(island)));
+        assertEquals(Integer.MAX_VALUE, result.distanceTo(island));
+        assertNull(result.nearestSourceOf(island));
+        assertTrue(result.pathTo(island).isEmpty());
+        assertEquals(-1, result.idOf(new Town("Nowhere")));
+        assertNull(result.nearestSourceOf(new Town("Nowhere")));
+    }
+
+    @Test
+    public void testNoSources() {
+        NearestSources result = graph.findNearestSources(new ArrayList<>());
+
+        assertEquals(0, result.sourceCount());
+        for (int id = 0; id < result.townCount(); id++) {
+            assertEquals(Integer.MAX_VALUE, result.distance(id));
+            assertEquals(-1, result.nearest(id));
+        }
+        assertTrue(result.pathTo(first).isEmpty());
+    }
+
+    @Test
+    public void testTownsChangedBetweenSearches() {
+        assertEquals(7, graph.findNearestSources(Arrays.asList(first)).townCount());
+
+        graph.addVertex(new Town("New"));
+        road("New", "C", 2, "NewC");
+        graph.removeVertex(new Town("Island"));
+
+        NearestSources result = graph.findNearestSources(Arrays.asList(first, second));
+        assertEquals(7, result.townCount());
+        assertEquals(-1, result.idOf(new Town("Island")));
+        assertEquals(3, result.distanceTo(new Town("New")));
+        assertEquals(Arrays.asList("S2 via S2C short to C 1 mi", "C via NewC to New 2 mi"), result.pathTo(new Town("New")));
+        assertEquals(3, graph.findShortestPaths(second).distanceTo(new Town("New")));
+    }
+
+    @Test
+    public void testMatchesSearchPerSource() {
+        Graph large = new RoadNetworkGenerator(RoadNetworkGenerator.Shape.GEOMETRIC, 1500, 23).toGraph();
+        List<Town> depots = new ArrayList<>();
+        for (int id : new int[]{3, 411, 902, 1377}) {
+            depots.add(new Town(RoadNetworkGenerator.townName(id)));
+        }
+        List<ShortestPathResult> trees = new ArrayList<>();
+        for (Town depot : depots) {
+            trees.add(large.findShortestPaths(depot));
+        }
+
+        NearestSources result = large.findNearestSources(depots);
+
+        for (int id = 0; id < result.townCount(); id++) {
+            Town town = result.getTown(id);
+            int best = Integer.MAX_VALUE;
+            for (ShortestPathResult tree : trees) {
+                best = Math.min(best, tree.distanceTo(town));
+            }
+
+            assertEquals(id, result.idOf(town));
+            assertEquals(best, result.distance(id));
+            if (best != Integer.MAX_VALUE) {
+                assertEquals(best, trees.get(result.nearest(id)).distanceTo(town));
+            }
+            if (result.predecessor(id) != -1) {
+                assertEquals(result.nearest(id), result.nearest(result.predecessor(id)));
+            }
+        }
+
+        Town town = new Town(RoadNetworkGenerator.townName(700));
+        List<String> path = result.pathTo(town);
+        assertEquals(result.distanceTo(town), TestRoutes.length(path));
+        assertTrue(path.get(0).startsWith(result.nearestSourceOf(town).getName() + " via "));
+    }
+}
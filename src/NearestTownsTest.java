@@ -0,0 +1,100 @@
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class NearestTownsTest {
+    private TownGraphManager manager;
+    private Graph graph;
+
+    @Before
+    public void setUp() {
+        manager = new TownGraphManager();
+        graph = new Graph();
+
+        for (String town : new String[]{"A", "B", "C", "D", "E", "Island", "Islet"}) {
+            manager.addTown(town);
+            graph.addVertex(new Town(town));
+        }
+
+        road("A", "B", 1, "AB");
+        road("A", "C", 3, "AC");
+        road("A", "D", 3, "AD");
+        road("B", "E", 5, "BE long");
+        road("B", "E", 1, "BE short");
+        road("Island", "Islet", 4, "Ferry");
+    }
+
+    private void road(String town1, String town2, int weight, String name) {
+        manager.addRoad(town1, town2, weight, name);
+        graph.addEdge(new Town(town1), new Town(town2), weight, name);
+    }
+
+    private static void assertTowns(Map<String, Integer> actual, Object... expected) {
+        List<Object> entries = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : actual.entrySet()) {
+            entries.add(entry.getKey());
+            entries.add(entry.getValue());
+        }
+        assertEquals(Arrays.asList(expected), entries);
+    }
+
+    @Test
+    public void testNearestTowns() {
+        //E is reached over the shorter of the two parallel roads, and towns at equal distance come by name
+        assertTowns(manager.nearestTowns("A", 2), "B", 1, "E", 2);
+        assertTowns(manager.nearestTowns("A", 4), "B", 1, "E", 2, "C", 3, "D", 3);
+        assertTowns(manager.nearestTowns("E", 2), "B", 1, "A", 2);
+        assertEquals(Arrays.asList("A via AB to B 1 mi", "B via BE short to E 1 mi"), graph.findNearestTowns(new Town("A"), 2).pathTo(new Town("E")));
+    }
+
+    @Test
+    public void testTieAtLastPlace() {
+        Map<String, Integer> nearest = manager.nearestTowns("A", 3);
+
+        //C and D tie for third place, only one of them is returned
+        assertEquals(3, nearest.size());
+        assertEquals(1, (int) nearest.get("B"));
+        assertEquals(2, (int) nearest.get("E"));
+        assertTrue(nearest.containsKey("C") != nearest.containsKey("D"));
+        assertTrue(nearest.values().contains(3));
+    }
+
+    @Test
+    public void testHaltsAfterK() {
+        assertEquals(3, graph.findNearestTowns(new Town("A"), 2).getDistances().size());
+        assertEquals(1, graph.findNearestTowns(new Town("A"), 0).getDistances().size());
+        assertTrue(manager.nearestTowns("A", 0).isEmpty());
+    }
+
+    @Test
+    public void testFewerReachableTowns() {
+        assertTowns(manager.nearestTowns("A", 10), "B", 1, "E", 2, "C", 3, "D", 3);
+        assertTowns(manager.nearestTowns("Island", 3), "Islet", 4);
+
+        assertTrue(manager.nearestTowns("Nowhere", 3).isEmpty());
+        assertTrue(manager.nearestTowns("Island", -1).isEmpty());
+    }
+
+    @Test
+    public void testMatchesSortedTree() {
+        RoadNetworkGenerator generator = new RoadNetworkGenerator(RoadNetworkGenerator.Shape.GEOMETRIC, 5000, 31);
+        ShortestPathResult tree = generator.toGraph().findShortestPaths(new Town("Town_100"));
+        List<Integer> all = new ArrayList<>(tree.getDistances().values());
+        all.sort(null);
+
+        Map<String, Integer> nearest = generator.toManager().nearestTowns("Town_100", 8);
+
+        assertEquals(8, nearest.size());
+        assertFalse(nearest.containsKey("Town_100"));
+        assertEquals(all.subList(1, 9), new ArrayList<>(nearest.values()));
+        for (Map.Entry<String, Integer> entry : nearest.entrySet()) {
+            assertEquals(tree.distanceTo(new Town(entry.getKey())), (int) entry.getValue());
+        }
+    }
+}
@@ -0,0 +1,304 @@
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Loads road files in the format of TownGraphManager.populateTownGraph on a ForkJoinPool
+ * The file is split into chunks at line boundaries and every chunk is parsed by its own TownFileLoader,
+ * with towns resolved through one shared concurrent interner. Towns are then added to the graph in the
+ * order they first appear in the file, and the roads are appended to their towns by workers that each
+ * own a share of the towns, so the graph ends up exactly as TownFileLoader would leave it
+ */
+class ParallelTownFileLoader {
+    static final int CHUNK_SIZE = 8 << 20;
+
+    private Graph graph;
+    private ForkJoinPool pool;
+    private int chunkSize;
+    private int partitions;
+    private ConcurrentHashMap<String, Town> interner;
+
+    /**
+     * Constructs a loader that adds to a graph
+     * @param graph graph to add the roads and towns to
+     * @param pool pool to parse and build on
+     */
+    ParallelTownFileLoader(Graph graph, ForkJoinPool pool){
+        this(graph, pool, CHUNK_SIZE);
+    }
+
+    /**
+     * Constructs a loader that splits files into chunks of about a given size
+     * @param graph graph to add the roads and towns to
+     * @param pool pool to parse and build on
+     * @param chunkSize number of bytes in a chunk, chunks are extended to the end of their last line
+     */
+    ParallelTownFileLoader(Graph graph, ForkJoinPool pool, int chunkSize){
+        if(chunkSize < 1){
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+
+        this.graph = graph;
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+        partitions = pool.getParallelism();
+        interner = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Adds every road in a file to the graph, adding each town the first time it appears
+     * The graph must not be used by any other thread until this returns
+     * @param file file to read
+     * @return number of roads added
+     * @throws IOException if the file cannot be read or a line is malformed
+     */
+    long load(File file) throws IOException {
+        try(FileInputStream input = new FileInputStream(file); FileChannel channel = input.getChannel()){
+            long[] bounds = split(channel);
+            List<Chunk> chunks = new ArrayList<>();
+
+            for(int i = 0; i + 1 < bounds.length; i++){
+                chunks.add(new Chunk(channel, bounds[i], bounds[i + 1]));
+            }
+
+            run(chunks);
+
+            long roads = 0, lines = 0;
+            for(Chunk chunk : chunks){
+                if(chunk.failure != null){
+                    throw chunk.problem == null ? chunk.failure : new IOException("Line " + (lines + chunk.failedLine) + " " + chunk.problem);
+                }
+
+                roads += chunk.roadCount;
+                lines += chunk.lineCount();
+            }
+
+            //Towns go in one at a time so the graph's maps see them in the same order as a sequential load
+            for(Chunk chunk : chunks){
+                for(Town town : chunk.towns){
+                    graph.addVertex(town);
+                }
+
+                if(chunk.roadCount > 0){
+                    graph.minWeight = Math.min(graph.minWeight, chunk.minWeight);
+                    graph.maxWeight = Math.max(graph.maxWeight, chunk.maxWeight);
+                }
+            }
+            //Roads are attached below without addEdge, so the load counts as one change
+            graph.modCount++;
+
+            List<ForkJoinTask<?>> appends = new ArrayList<>();
+            for(int partition = 0; partition < partitions; partition++){
+                int owned = partition;
+                appends.add(ForkJoinTask.adapt(() -> append(chunks, owned)));
+            }
+            run(appends);
+
+            return roads;
+        }
+    }
+
+    /**
+     * Finds chunk boundaries, each one just after a newline
+     * @return offsets starting with 0 and ending with the file size
+     */
+    private long[] split(FileChannel channel) throws IOException {
+        long size = channel.size();
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        long next = chunkSize;
+
+        while(next < size){
+            long position = next;
+            long bound = -1;
+
+            while(bound == -1 && position < size){
+                buffer.clear();
+                int read = channel.read(buffer, position);
+
+                for(int i = 0; i < read && bound == -1; i++){
+                    if(buffer.get(i) == '\n'){
+                        bound = position + i + 1;
+                    }
+                }
+
+                position += Math.max(read, 0);
+            }
+
+            if(bound == -1 || bound >= size){
+                break;
+            }
+            if(bound - bounds.get(bounds.size() - 1) > Integer.MAX_VALUE - 8){
+                throw new IOException("Line ending at byte " + bound + " is too long to load");
+            }
+
+            bounds.add(bound);
+            next = bound + chunkSize;
+        }
+
+        if(size - bounds.get(bounds.size() - 1) > Integer.MAX_VALUE - 8){
+            throw new IOException("Last line is too long to load");
+        }
+
+        bounds.add(size);
+
+        long[] result = new long[bounds.size()];
+        for(int i = 0; i < result.length; i++){
+            result[i] = bounds.get(i);
+        }
+        return result;
+    }
+
+    private void run(List<? extends ForkJoinTask<?>> tasks){
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute(){
+                invokeAll(tasks);
+            }
+        });
+    }
+
+    /**
+     * Appends the roads of the towns in one partition, walking the chunks in file order
+     */
+    private void append(List<Chunk> chunks, int partition){
+        for(Chunk chunk : chunks){
+            int[] ends = chunk.ends[partition];
+
+            for(int i = 0; i < chunk.endCounts[partition]; i++){
+                Road road = chunk.roads[ends[i] >> 1];
+
+                if((ends[i] & 1) == 0){
+                    road.getSource().getRoads().add(road);
+                    graph.attach(road.getSource(), road);
+                } else {
+                    road.getDestination().getRoads().add(road);
+
+                    //A road from a town to itself is listed once among the town's adjacent roads
+                    if(!road.getDestination().equals(road.getSource())){
+                        graph.attach(road.getDestination(), road);
+                    }
+                }
+            }
+        }
+    }
+
+    private int partitionOf(Town town){
+        int hash = town.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), partitions);
+    }
+
+    /**
+     * One range of lines, parsed into roads and the towns they first mention
+     */
+    private class Chunk extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private FileChannel channel;
+        private long start, end;
+        private TownFileLoader parser;
+
+        private Road[] roads;
+        private int roadCount;
+        private int minWeight = Integer.MAX_VALUE, maxWeight = Integer.MIN_VALUE;
+        private List<Town> towns;
+
+        //Ends of the roads grouped by the partition of their town, each entry is the road index times two plus the end
+        private int[][] ends;
+        private int[] endCounts;
+
+        private IOException failure;
+        private String problem;
+        private long failedLine;
+
+        private Chunk(FileChannel channel, long start, long end){
+            this.channel = channel;
+            this.start = start;
+            this.end = end;
+            roads = new Road[(int) Math.min(1 << 20, (end - start) / 32 + 16)];
+            towns = new ArrayList<>();
+            ends = new int[partitions][16];
+            endCounts = new int[partitions];
+        }
+
+        private long lineCount(){
+            return parser.lineCount();
+        }
+
+        @Override
+        protected void compute(){
+            parser = new TownFileLoader(graph) {
+                @Override
+                void addRoad(String roadName, int weight, Town town1, Town town2){
+                    add(new Road(town1, town2, weight, roadName));
+                }
+
+                @Override
+                Town resolve(String name){
+                    Town town = interner.computeIfAbsent(name, key -> {
+                        Town existing = graph.getVertex(key);
+                        return existing == null ? new Town(key) : existing;
+                    });
+
+                    towns.add(town);
+                    return town;
+                }
+
+                @Override
+                IOException malformed(String description){
+                    problem = description;
+                    failedLine = lineCount();
+                    return super.malformed(description);
+                }
+            };
+
+            try {
+                byte[] bytes = new byte[(int) (end - start)];
+                ByteBuffer buffer = ByteBuffer.wrap(bytes);
+
+                while(buffer.hasRemaining()){
+                    if(channel.read(buffer, start + buffer.position()) == -1){
+                        throw new EOFException("File ended before byte " + end);
+                    }
+                }
+
+                parser.parse(bytes, 0, bytes.length);
+            } catch(IOException e){
+                failure = e;
+            }
+        }
+
+        private void add(Road road){
+            if(roadCount == roads.length){
+                roads = Arrays.copyOf(roads, 2 * roadCount);
+            }
+
+            minWeight = Math.min(minWeight, road.getWeight());
+            maxWeight = Math.max(maxWeight, road.getWeight());
+
+            addEnd(partitionOf(road.getSource()), 2 * roadCount);
+            addEnd(partitionOf(road.getDestination()), 2 * roadCount + 1);
+            roads[roadCount++] = road;
+        }
+
+        private void addEnd(int partition, int entry){
+            if(endCounts[partition] == ends[partition].length){
+                ends[partition] = Arrays.copyOf(ends[partition], 2 * endCounts[partition]);
+            }
+
+            ends[partition][endCounts[partition]++] = entry;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ParallelTownFileLoaderTest {
+    private ForkJoinPool pool;
+
+    @Before
+    public void setUp() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    private File write(String text) throws IOException {
+        File file = File.createTempFile("towns", ".txt");
+        file.deleteOnExit();
+
+        try (FileOutputStream output = new FileOutputStream(file)) {
+            output.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+
+        return file;
+    }
+
+    private static List<String> names(List<Road> roads) {
+        List<String> names = new ArrayList<>();
+        for (Road road : roads) {
+            names.add(road.getName() + " " + road.getWeight());
+        }
+        return names;
+    }
+
+    private static void assertSameGraph(Graph expected, Graph actual) {
+        assertEquals(new ArrayList<>(expected.adjacents.keySet()), new ArrayList<>(actual.adjacents.keySet()));
+        assertEquals(expected.minWeight, actual.minWeight);
+        assertEquals(expected.maxWeight, actual.maxWeight);
+
+        for (Town town : expected.vertexSet()) {
+            Town loaded = actual.getVertex(town.getName());
+            assertEquals(names(expected.adjacents.get(town)), names(actual.adjacents.get(loaded)));
+            assertEquals(names(town.getRoads()), names(loaded.getRoads()));
+            assertEquals(expected.neighbors.get(town).keySet(), actual.neighbors.get(loaded).keySet());
+
+            for (Town neighbor : expected.neighbors.get(town).keySet()) {
+                assertEquals(expected.getEdge(town, neighbor).getName(), actual.getEdge(loaded, neighbor).getName());
+            }
+        }
+    }
+
+    @Test
+    public void testMatchesSequentialLoad() throws IOException {
+        Random random = new Random(3);
+        StringBuilder text = new StringBuilder();
+
+        for (int i = 0; i < 5000; i++) {
+            int town1 = random.nextInt(400), town2 = random.nextInt(400);
+            text.append("Road_").append(random.nextInt(3000)).append(',').append(1 + random.nextInt(60))
+                .append(';').append("Town ").append(town1).append(';').append("Town ").append(i % 97 == 0 ? town1 : town2)
+                .append(i % 5 == 0 ? "\r\n" : "\n");
+            if (i % 311 == 0) {
+                text.append('\n');
+            }
+        }
+        File file = write(text.toString());
+
+        Graph sequential = new Graph();
+        Graph parallel = new Graph();
+        long roads = new TownFileLoader(sequential).load(file);
+
+        assertEquals(roads, new ParallelTownFileLoader(parallel, pool, 1024).load(file));
+        assertSameGraph(sequential, parallel);
+
+        for (int i = 0; i < 50; i++) {
+            Town source = new Town("Town " + random.nextInt(400)), destination = new Town("Town " + random.nextInt(400));
+            assertEquals(sequential.shortestPath(source, destination), parallel.shortestPath(source, destination));
+        }
+    }
+
+    @Test
+    public void testGeneratedNetwork() throws IOException {
+        File file = File.createTempFile("network", ".txt");
+        file.deleteOnExit();
+        new RoadNetworkGenerator(RoadNetworkGenerator.Shape.GEOMETRIC, 3000, 9).write(file);
+
+        Graph sequential = new Graph();
+        Graph parallel = new Graph();
+        new TownFileLoader(sequential).load(file);
+        new ParallelTownFileLoader(parallel, pool, 4096).load(file);
+
+        assertSameGraph(sequential, parallel);
+    }
+
+    @Test
+    public void testTownsAreShared() throws IOException {
+        TownGraphManager manager = new TownGraphManager();
+        manager.addTown("Town A");
+        Town existing = manager.getTown("Town A");
+
+        manager.populateTownGraph(write("Road_1,1;Town A;Town B\nRoad_2,2;Town B;Town A\n"), pool);
+
+        assertSame(existing, manager.getTown("Town A"));
+        assertEquals(2, existing.getRoads().size());
+        assertTrue(manager.containsRoadConnection("Town B", "Town A"));
+        assertEquals(2, manager.allTowns().size());
+    }
+
+    @Test
+    public void testEmptyFile() throws IOException {
+        Graph graph = new Graph();
+
+        assertEquals(0, new ParallelTownFileLoader(graph, pool).load(write("")));
+        assertTrue(graph.vertexSet().isEmpty());
+    }
+
+    @Test
+    public void testMalformedLineNumber() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 1; i < 300; i++) {
+            text.append("Road_").append(i).append(",1;Town_").append(i).append(";Town_").append(i + 1).append('\n');
+        }
+        text.append("Road_300,1;Town_300\n");
+
+        try {
+            new ParallelTownFileLoader(new Graph(), pool, 64).load(write(text.toString()));
+            fail("Expected an IOException");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Line 300 "));
+        }
+    }
+}
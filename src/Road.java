@@ -72,6 +72,21 @@ public class Road implements Comparable<Road> {
         return town.equals(source) || town.equals(destination);
     }
 
+    /**
+     * Gets the town at the opposite end of the road
+     * @param town town at one end of the road
+     * @return the other town, or null if the road does not touch the town
+     */
+    public Town getOtherTown(Town town){
+        if(town.equals(source)){
+            return destination;
+        } else if(town.equals(destination)){
+            return source;
+        }
+
+        return null;
+    }
+
     /**
      * String representation of road
      * @return name of road
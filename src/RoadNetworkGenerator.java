@@ -0,0 +1,359 @@
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Random;
+
+/**
+ * Seeded generator of synthetic road networks for load and scale testing
+ * Roads are handed to a consumer one at a time as they are generated, so writing a network
+ * to a file never holds its roads in memory. Towns are named Town_0 to Town_(n - 1) and
+ * roads Road_0 upward, and the same shape, size and seed always produce the same network
+ */
+public class RoadNetworkGenerator {
+    /**
+     * Layouts the generator can produce
+     */
+    public enum Shape {
+        /**
+         * Towns on a square lattice, each joined to its right and lower neighbor
+         */
+        GRID,
+
+        /**
+         * Towns at random points in a unit square, joined when closer than a radius that gives
+         * about six roads per town, weighted by distance
+         */
+        GEOMETRIC,
+
+        /**
+         * Preferential attachment where each new town joins two existing towns picked in
+         * proportion to their degree, giving a few hubs with many roads
+         */
+        SCALE_FREE
+    }
+
+    /**
+     * Receives generated roads
+     */
+    public interface RoadConsumer {
+        /**
+         * Accepts one road
+         * @param road id of the road
+         * @param weight weight of the road, between 1 and 50
+         * @param town1 id of the town at one end
+         * @param town2 id of the town at the other end
+         * @throws IOException if the road cannot be written
+         */
+        void accept(int road, int weight, int town1, int town2) throws IOException;
+    }
+
+    private static final int MAX_WEIGHT = 50;
+    private static final double GEOMETRIC_DEGREE = 6;
+    private static final int ATTACHMENTS = 2;
+
+    private Shape shape;
+    private int townCount;
+    private long seed;
+    private int roadCount;
+
+    /**
+     * Constructs a generator
+     * @param shape layout of the network
+     * @param townCount number of towns
+     * @param seed seed for every random choice
+     */
+    public RoadNetworkGenerator(Shape shape, int townCount, long seed){
+        if(shape == null){
+            throw new NullPointerException("Shape cannot be null");
+        }
+        if(townCount < 1){
+            throw new IllegalArgumentException("A network needs at least one town");
+        }
+
+        this.shape = shape;
+        this.townCount = townCount;
+        this.seed = seed;
+    }
+
+    /**
+     * Gets the number of towns in the network
+     * @return number of towns
+     */
+    public int townCount(){
+        return townCount;
+    }
+
+    /**
+     * Gets the name of a town
+     * @param town id of the town
+     * @return name of the town
+     */
+    public static String townName(int town){
+        return "Town_" + town;
+    }
+
+    /**
+     * Gets the name of a road
+     * @param road id of the road
+     * @return name of the road
+     */
+    public static String roadName(int road){
+        return "Road_" + road;
+    }
+
+    /**
+     * Generates the network, passing each road to a consumer in order
+     * @param consumer receiver of the roads
+     * @return number of roads generated
+     * @throws IOException if the consumer fails
+     */
+    public int generate(RoadConsumer consumer) throws IOException {
+        roadCount = 0;
+        Random random = new Random(seed);
+
+        switch(shape){
+            case GRID:
+                generateGrid(consumer, random);
+                break;
+            case GEOMETRIC:
+                generateGeometric(consumer, random);
+                break;
+            default:
+                generateScaleFree(consumer, random);
+                break;
+        }
+
+        return roadCount;
+    }
+
+    /**
+     * Writes the network in the "road,weight;town1;town2" format read by TownGraphManager.populateTownGraph
+     * @param writer destination of the lines
+     * @return number of roads written
+     * @throws IOException if writing fails
+     */
+    public int write(Writer writer) throws IOException {
+        BufferedWriter output = writer instanceof BufferedWriter ? (BufferedWriter) writer : new BufferedWriter(writer, 1 << 16);
+
+        int roads = generate((road, weight, town1, town2) -> {
+            output.write(roadName(road));
+            output.write(',');
+            output.write(Integer.toString(weight));
+            output.write(';');
+            output.write(townName(town1));
+            output.write(';');
+            output.write(townName(town2));
+            output.newLine();
+        });
+
+        output.flush();
+        return roads;
+    }
+
+    /**
+     * Writes the network to a file in the format read by TownGraphManager.populateTownGraph
+     * @param file file to write
+     * @return number of roads written
+     * @throws IOException if writing fails
+     */
+    public int write(File file) throws IOException {
+        try(Writer writer = new FileWriter(file)){
+            return write(writer);
+        }
+    }
+
+    /**
+     * Builds the network directly in a new graph
+     * @return graph holding every town and road
+     */
+    public Graph toGraph(){
+        Graph graph = new Graph();
+        Town[] towns = towns();
+
+        for(Town town : towns){
+            graph.addVertex(town);
+        }
+
+        try {
+            generate((road, weight, town1, town2) -> graph.addEdge(towns[town1], towns[town2], weight, roadName(road)));
+        } catch(IOException e){
+            throw new IllegalStateException(e);
+        }
+
+        return graph;
+    }
+
+    /**
+     * Builds the network in a new town graph manager through its public interface
+     * @return manager holding every town and road
+     */
+    public TownGraphManager toManager(){
+        TownGraphManager manager = new TownGraphManager();
+        populate(manager);
+        return manager;
+    }
+
+    /**
+     * Creates a town for every name in the network
+     * @return towns indexed by id
+     */
+    public Town[] towns(){
+        Town[] towns = new Town[townCount];
+        for(int i = 0; i < townCount; i++){
+            towns[i] = new Town(townName(i));
+        }
+        return towns;
+    }
+
+    /**
+     * Adds the network to a town graph manager through its public interface
+     * @param manager manager to fill
+     */
+    public void populate(TownGraphManagerInterface manager){
+        for(int i = 0; i < townCount; i++){
+            manager.addTown(townName(i));
+        }
+
+        try {
+            generate((road, weight, town1, town2) -> manager.addRoad(townName(town1), townName(town2), weight, roadName(road)));
+        } catch(IOException e){
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void emit(RoadConsumer consumer, int weight, int town1, int town2) throws IOException {
+        consumer.accept(roadCount++, weight, town1, town2);
+    }
+
+    private void generateGrid(RoadConsumer consumer, Random random) throws IOException {
+        int width = (int) Math.ceil(Math.sqrt(townCount));
+
+        for(int i = 0; i < townCount; i++){
+            if((i + 1) % width != 0 && i + 1 < townCount){
+                emit(consumer, 1 + random.nextInt(MAX_WEIGHT), i, i + 1);
+            }
+            if(i + width < townCount){
+                emit(consumer, 1 + random.nextInt(MAX_WEIGHT), i, i + width);
+            }
+        }
+    }
+
+    private void generateGeometric(RoadConsumer consumer, Random random) throws IOException {
+        float[] x = new float[townCount];
+        float[] y = new float[townCount];
+
+        for(int i = 0; i < townCount; i++){
+            x[i] = random.nextFloat();
+            y[i] = random.nextFloat();
+        }
+
+        double radius = Math.min(1, Math.sqrt(GEOMETRIC_DEGREE / (Math.PI * townCount)));
+        int side = Math.max(1, (int) (1 / radius));
+
+        //Counting sort of the towns into square cells at least one radius wide
+        int[] cellStarts = new int[side * side + 1];
+        int[] cells = new int[townCount];
+        for(int i = 0; i < townCount; i++){
+            cells[i] = cellOf(x[i], side) * side + cellOf(y[i], side);
+            cellStarts[cells[i] + 1]++;
+        }
+        for(int c = 0; c < side * side; c++){
+            cellStarts[c + 1] += cellStarts[c];
+        }
+
+        int[] members = new int[townCount];
+        int[] fill = new int[side * side];
+        for(int i = 0; i < townCount; i++){
+            members[cellStarts[cells[i]] + fill[cells[i]]++] = i;
+        }
+        fill = null;
+
+        for(int i = 0; i < townCount; i++){
+            int cellX = cells[i] / side, cellY = cells[i] % side;
+
+            for(int nx = Math.max(0, cellX - 1); nx <= Math.min(side - 1, cellX + 1); nx++){
+                for(int ny = Math.max(0, cellY - 1); ny <= Math.min(side - 1, cellY + 1); ny++){
+                    int cell = nx * side + ny;
+
+                    for(int k = cellStarts[cell]; k < cellStarts[cell + 1]; k++){
+                        int j = members[k];
+
+                        if(j <= i){
+                            continue;
+                        }
+
+                        double distance = Math.hypot(x[i] - x[j], y[i] - y[j]);
+                        if(distance <= radius){
+                            emit(consumer, 1 + (int) (distance / radius * (MAX_WEIGHT - 1)), i, j);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static int cellOf(float coordinate, int side){
+        return Math.min(side - 1, (int) (coordinate * side));
+    }
+
+    private void generateScaleFree(RoadConsumer consumer, Random random) throws IOException {
+        int seedTowns = Math.min(townCount, ATTACHMENTS + 1);
+        long roads = (long) seedTowns * (seedTowns - 1) / 2 + (long) (townCount - seedTowns) * ATTACHMENTS;
+
+        //Every road adds both of its towns, so picking a random entry picks a town in proportion to its degree
+        int[] endpoints = new int[(int) Math.min(Integer.MAX_VALUE - 8, 2 * roads)];
+        int endpointCount = 0;
+
+        for(int i = 0; i < seedTowns; i++){
+            for(int j = i + 1; j < seedTowns; j++){
+                emit(consumer, 1 + random.nextInt(MAX_WEIGHT), i, j);
+                endpoints[endpointCount++] = i;
+                endpoints[endpointCount++] = j;
+            }
+        }
+
+        int[] picked = new int[ATTACHMENTS];
+        for(int town = seedTowns; town < townCount; town++){
+            int pickedCount = 0;
+
+            while(pickedCount < ATTACHMENTS){
+                int target = endpoints[random.nextInt(endpointCount)];
+                boolean duplicate = false;
+
+                for(int p = 0; p < pickedCount; p++){
+                    duplicate |= picked[p] == target;
+                }
+
+                if(!duplicate){
+                    picked[pickedCount++] = target;
+                }
+            }
+
+            for(int target : picked){
+                emit(consumer, 1 + random.nextInt(MAX_WEIGHT), town, target);
+                endpoints[endpointCount++] = town;
+                endpoints[endpointCount++] = target;
+            }
+        }
+    }
+
+    /**
+     * Writes a generated network to a file
+     * Usage: RoadNetworkGenerator grid|geometric|scale_free towns seed file
+     * @param args shape, number of towns, seed and output file
+     * @throws IOException if the file cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        if(args.length != 4){
+            System.err.println("Usage: RoadNetworkGenerator grid|geometric|scale_free towns seed file");
+            System.exit(1);
+        }
+
+        RoadNetworkGenerator generator = new RoadNetworkGenerator(Shape.valueOf(args[0].toUpperCase()), Integer.parseInt(args[1]), Long.parseLong(args[2]));
+        int roads = generator.write(new File(args[3]));
+
+        System.out.println("Wrote " + generator.townCount() + " towns and " + roads + " roads to " + args[3]);
+    }
+}
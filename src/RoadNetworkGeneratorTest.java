@@ -0,0 +1,94 @@
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class RoadNetworkGeneratorTest {
+
+    @Test
+    public void testGridRoadCount() throws IOException {
+        //A 10 by 10 grid has 9 roads across each of 10 rows and 9 roads down each of 10 columns
+        RoadNetworkGenerator generator = new RoadNetworkGenerator(RoadNetworkGenerator.Shape.GRID, 100, 1);
+        assertEquals(180, generator.generate((road, weight, town1, town2) -> {}));
+    }
+
+    @Test
+    public void testSameSeedSameNetwork() throws IOException {
+        for (RoadNetworkGenerator.Shape shape : RoadNetworkGenerator.Shape.values()) {
+            StringWriter first = new StringWriter(), second = new StringWriter(), other = new StringWriter();
+            new RoadNetworkGenerator(shape, 500, 42).write(first);
+            new RoadNetworkGenerator(shape, 500, 42).write(second);
+            new RoadNetworkGenerator(shape, 500, 43).write(other);
+
+            assertEquals(first.toString(), second.toString());
+            assertNotEquals(first.toString(), other.toString());
+        }
+    }
+
+    @Test
+    public void testRoadsAreValid() throws IOException {
+        for (RoadNetworkGenerator.Shape shape : RoadNetworkGenerator.Shape.values()) {
+            Set<Long> pairs = new HashSet<>();
+            int[] expectedId = {0};
+
+            int roads = new RoadNetworkGenerator(shape, 2000, 7).generate((road, weight, town1, town2) -> {
+                assertEquals(expectedId[0]++, road);
+                assertTrue(weight >= 1 && weight <= 50);
+                assertTrue(town1 >= 0 && town1 < 2000 && town2 >= 0 && town2 < 2000);
+                assertNotEquals(town1, town2);
+                assertTrue(pairs.add((long) Math.min(town1, town2) << 32 | Math.max(town1, town2)));
+            });
+
+            assertEquals(expectedId[0], roads);
+            assertTrue(roads > 2000);
+        }
+    }
+
+    @Test
+    public void testScaleFreeRoadCount() throws IOException {
+        //Three starting towns joined to each other, then two roads for every other town
+        RoadNetworkGenerator generator = new RoadNetworkGenerator(RoadNetworkGenerator.Shape.SCALE_FREE, 1000, 3);
+        assertEquals(3 + 997 * 2, generator.generate((road, weight, town1, town2) -> {}));
+    }
+
+    @Test
+    public void testFileMatchesInMemoryGraph() throws IOException {
+        RoadNetworkGenerator generator = new RoadNetworkGenerator(RoadNetworkGenerator.Shape.GEOMETRIC, 300, 11);
+        File file = File.createTempFile("network", ".txt");
+        file.deleteOnExit();
+
+        int roads = generator.write(file);
+        TownGraphManager manager = new TownGraphManager();
+        manager.populateTownGraph(file);
+        Graph graph = generator.toGraph();
+
+        assertEquals(roads, graph.edgeSet().size());
+        assertEquals(roads, manager.allRoads().size());
+        for (int i = 0; i < 20; i++) {
+            String source = RoadNetworkGenerator.townName(i), destination = RoadNetworkGenerator.townName(299 - i);
+            assertEquals(graph.shortestPath(graph.getVertex(source), graph.getVertex(destination)), manager.getPath(source, destination));
+        }
+    }
+
+    @Test
+    public void testPopulateManager() {
+        TownGraphManager manager = new TownGraphManager();
+        new RoadNetworkGenerator(RoadNetworkGenerator.Shape.GRID, 9, 5).populate(manager);
+
+        assertEquals(9, manager.allTowns().size());
+        assertEquals(12, manager.allRoads().size());
+        assertTrue(manager.containsRoadConnection("Town_0", "Town_1"));
+        assertTrue(manager.containsRoadConnection("Town_0", "Town_3"));
+        assertFalse(manager.containsRoadConnection("Town_2", "Town_3"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmptyNetwork() {
+        new RoadNetworkGenerator(RoadNetworkGenerator.Shape.GRID, 0, 1);
+    }
+}
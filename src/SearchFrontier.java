@@ -0,0 +1,230 @@
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Labels of a Dijkstra search that grows outward from one town
+ * Only towns the search has reached are stored, so memory grows with the explored
+ * area instead of the size of the graph. Labels are queued in a binary heap, or in a
+ * BucketQueue when every road weight is known to be small
+ */
+public class SearchFrontier {
+    private Town origin;
+    private Map<Town, Integer> distances;
+    private Map<Town, Road> arrivals;
+    private Set<Town> settled;
+    private PriorityQueue<Label> queue;
+    private BucketQueue<Label> buckets;
+    private long labelCount;
+
+    /**
+     * Constructs a frontier holding only the origin at distance 0
+     * @param origin town the search starts from
+     */
+    public SearchFrontier(Town origin){
+        this(origin, -1);
+    }
+
+    /**
+     * Constructs a frontier that queues labels in buckets
+     * Both queues settle towns in exactly the same order
+     * @param origin town the search starts from
+     * @param maxWeight largest weight of any road the search can cross, or -1 to use a binary heap
+     */
+    public SearchFrontier(Town origin, int maxWeight){
+        this.origin = origin;
+        distances = new HashMap<>();
+        arrivals = new HashMap<>();
+        settled = new HashSet<>();
+
+        if(maxWeight >= 0){
+            buckets = new BucketQueue<>(maxWeight);
+        } else {
+            //Equal distances pop the most recently labelled town first, which keeps the search moving outward
+            queue = new PriorityQueue<>((a, b) -> a.distance != b.distance ? Integer.compare(a.distance, b.distance) : Long.compare(b.order, a.order));
+        }
+
+        distances.put(origin, 0);
+        push(new Label(origin, 0, labelCount++));
+    }
+
+    /**
+     * Gets the town the search started from
+     * @return origin town
+     */
+    public Town getOrigin(){
+        return origin;
+    }
+
+    /**
+     * Determines if any towns are left to settle
+     * @return true if the frontier is empty
+     */
+    public boolean isExhausted(){
+        discardStale();
+        return queueIsEmpty();
+    }
+
+    /**
+     * Gets the distance of the next town that would be settled
+     * @return lowest tentative distance, or Integer.MAX_VALUE if the frontier is empty
+     */
+    public int peekDistance(){
+        discardStale();
+        return queueIsEmpty() ? Integer.MAX_VALUE : peek().distance;
+    }
+
+    /**
+     * Settles the closest unsettled town
+     * @return the settled town, or null if the frontier is empty
+     */
+    public Town settleNext(){
+        discardStale();
+
+        if(queueIsEmpty()){
+            return null;
+        }
+
+        Town town = poll().town;
+        settled.add(town);
+
+        return town;
+    }
+
+    /**
+     * Offers a new tentative distance for a town
+     * @param town town reached
+     * @param distance distance from the origin through the road
+     * @param road road used to reach the town
+     * @return true if the distance improved the town's label
+     */
+    public boolean relax(Town town, int distance, Road road){
+        if(settled.contains(town)){
+            return false;
+        }
+
+        Integer known = distances.get(town);
+
+        if(known != null && known <= distance){
+            return false;
+        }
+
+        distances.put(town, distance);
+        arrivals.put(town, road);
+        push(new Label(town, distance, labelCount++));
+
+        return true;
+    }
+
+    /**
+     * Determines if a town has been settled
+     * @param town town to check
+     * @return true if the town's distance is final
+     */
+    public boolean isSettled(Town town){
+        return settled.contains(town);
+    }
+
+    /**
+     * Gets the best known distance to a town
+     * @param town town to check
+     * @return distance from the origin, or Integer.MAX_VALUE if the town has not been reached
+     */
+    public int distanceTo(Town town){
+        Integer distance = distances.get(town);
+        return distance == null ? Integer.MAX_VALUE : distance;
+    }
+
+    /**
+     * Gets the roads leading from the origin to a reached town
+     * @param town town that has been reached
+     * @return roads in order starting at the origin
+     */
+    public LinkedList<Road> roadsTo(Town town){
+        LinkedList<Road> roads = new LinkedList<>();
+        Town current = town;
+
+        while(!current.equals(origin)){
+            Road road = arrivals.get(current);
+            roads.addFirst(road);
+            current = road.getOtherTown(current);
+        }
+
+        return roads;
+    }
+
+    /**
+     * Copies the labels of the settled towns into an immutable result
+     * @param destination town the path was requested for, or null for a full tree
+     * @return result of the search so far
+     */
+    public ShortestPathResult toResult(Town destination){
+        Map<Town, Integer> finalDistances = new HashMap<>();
+        Map<Town, Road> finalArrivals = new HashMap<>();
+
+        for(Town town : settled){
+            finalDistances.put(town, distances.get(town));
+
+            if(arrivals.containsKey(town)){
+                finalArrivals.put(town, arrivals.get(town));
+            }
+        }
+
+        return new ShortestPathResult(origin, destination, finalDistances, finalArrivals);
+    }
+
+    /**
+     * Gets the number of towns the search has settled
+     * @return number of settled towns
+     */
+    public int settledCount(){
+        return settled.size();
+    }
+
+    private void discardStale(){
+        while(!queueIsEmpty()){
+            Label head = peek();
+
+            if(!settled.contains(head.town) && head.distance == distances.get(head.town)){
+                return;
+            }
+
+            poll();
+        }
+    }
+
+    private boolean queueIsEmpty(){
+        return buckets == null ? queue.isEmpty() : buckets.isEmpty();
+    }
+
+    private Label peek(){
+        return buckets == null ? queue.peek() : buckets.peek();
+    }
+
+    private Label poll(){
+        return buckets == null ? queue.poll() : buckets.poll();
+    }
+
+    private void push(Label label){
+        if(buckets == null){
+            queue.add(label);
+        } else {
+            buckets.push(label, label.distance);
+        }
+    }
+
+    private static class Label {
+        private Town town;
+        private int distance;
+        private long order;
+
+        private Label(Town town, int distance, long order){
+            this.town = town;
+            this.distance = distance;
+            this.order = order;
+        }
+    }
+}
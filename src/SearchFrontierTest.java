@@ -0,0 +1,79 @@
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class SearchFrontierTest {
+    private Town a, b, c;
+    private Road ab, bc, ac;
+    private SearchFrontier frontier;
+
+    @Before
+    public void setUp() {
+        a = new Town("A");
+        b = new Town("B");
+        c = new Town("C");
+        ab = new Road(a, b, 2, "AB");
+        bc = new Road(b, c, 3, "BC");
+        ac = new Road(a, c, 9, "AC");
+        frontier = new SearchFrontier(a);
+    }
+
+    @Test
+    public void testSettlesOriginFirst() {
+        assertEquals(0, frontier.peekDistance());
+        assertEquals(a, frontier.settleNext());
+        assertTrue(frontier.isSettled(a));
+        assertTrue(frontier.isExhausted());
+        assertNull(frontier.settleNext());
+    }
+
+    @Test
+    public void testRelaxKeepsShorterLabel() {
+        frontier.settleNext();
+        assertTrue(frontier.relax(c, 9, ac));
+        assertTrue(frontier.relax(b, 2, ab));
+        assertEquals(b, frontier.settleNext());
+        assertTrue(frontier.relax(c, 5, bc));
+        assertFalse(frontier.relax(c, 9, ac));
+        assertFalse(frontier.relax(a, 4, ab));
+
+        assertEquals(c, frontier.settleNext());
+        assertEquals(5, frontier.distanceTo(c));
+        assertTrue(frontier.isExhausted());
+    }
+
+    @Test
+    public void testRoadsTo() {
+        frontier.settleNext();
+        frontier.relax(b, 2, ab);
+        frontier.settleNext();
+        frontier.relax(c, 5, bc);
+
+        List<Road> roads = frontier.roadsTo(c);
+        assertEquals(2, roads.size());
+        assertSame(ab, roads.get(0));
+        assertSame(bc, roads.get(1));
+        assertEquals(Integer.MAX_VALUE, new SearchFrontier(b).distanceTo(a));
+    }
+
+    @Test
+    public void testBucketQueueSettlesInSameOrder() {
+        SearchFrontier bucketed = new SearchFrontier(a, 9);
+        Town d = new Town("D");
+
+        for (SearchFrontier side : new SearchFrontier[]{frontier, bucketed}) {
+            side.settleNext();
+            side.relax(b, 2, ab);
+            side.relax(d, 2, new Road(a, d, 2, "AD"));
+            side.relax(c, 9, ac);
+        }
+
+        assertEquals(frontier.settleNext(), bucketed.settleNext());
+        assertEquals(frontier.settleNext(), bucketed.settleNext());
+        assertEquals(frontier.peekDistance(), bucketed.peekDistance());
+        assertEquals(c, bucketed.settleNext());
+    }
+}
@@ -0,0 +1,14 @@
+/**
+ * Strategies for finding the shortest path between two towns
+ */
+public enum SearchMode {
+    /**
+     * Grows one search from the source and stops once the destination is settled
+     */
+    POINT_TO_POINT,
+
+    /**
+     * Grows one search from each end and stops once no shorter meeting point is possible
+     */
+    BIDIRECTIONAL
+}
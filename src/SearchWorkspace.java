@@ -0,0 +1,179 @@
+import java.util.Arrays;
+
+/**
+ * Reusable labels for a Dijkstra search over dense town ids
+ * Every label carries the version of the search that wrote it, so starting a new search
+ * only bumps the version instead of clearing arrays the size of the graph. Each thread
+ * keeps its own workspaces, which are reused by every search the thread runs
+ */
+public class SearchWorkspace {
+    private static final ThreadLocal<SearchWorkspace[]> WORKSPACES =
+            ThreadLocal.withInitial(() -> new SearchWorkspace[]{new SearchWorkspace(), new SearchWorkspace()});
+
+    private int[] distances;
+    private int[] parents;
+    private Road[] arrivals;
+    private int[] labelled;
+    private int[] settled;
+    private int version;
+    private IndexedMinHeap queue;
+
+    /**
+     * Constructs an empty workspace, arrays are sized by the first search
+     */
+    public SearchWorkspace(){
+        distances = new int[0];
+        parents = new int[0];
+        arrivals = new Road[0];
+        labelled = new int[0];
+        settled = new int[0];
+        queue = new IndexedMinHeap(0);
+    }
+
+    /**
+     * Gets the calling thread's workspace for a forward search, reset for a new search
+     * A search must be finished before the same thread asks for this workspace again
+     * @param capacity number of towns the search can label
+     * @return empty workspace
+     */
+    public static SearchWorkspace forward(int capacity){
+        return WORKSPACES.get()[0].reset(capacity);
+    }
+
+    /**
+     * Gets the calling thread's workspace for the second side of a bidirectional search
+     * @param capacity number of towns the search can label
+     * @return empty workspace
+     */
+    public static SearchWorkspace backward(int capacity){
+        return WORKSPACES.get()[1].reset(capacity);
+    }
+
+    /**
+     * Forgets every label, growing the arrays if the graph has grown
+     * @param capacity number of towns the search can label
+     * @return this workspace
+     */
+    public SearchWorkspace reset(int capacity){
+        queue.clear();
+
+        if(distances.length < capacity){
+            int length = Math.max(capacity, distances.length * 2);
+            distances = new int[length];
+            parents = new int[length];
+            arrivals = new Road[length];
+            labelled = new int[length];
+            settled = new int[length];
+            queue = new IndexedMinHeap(length);
+            version = 0;
+        }
+
+        if(++version == Integer.MAX_VALUE){
+            Arrays.fill(labelled, 0);
+            Arrays.fill(settled, 0);
+            version = 1;
+        }
+
+        return this;
+    }
+
+    /**
+     * Gets the best known distance to a town
+     * @param id id of the town
+     * @return distance, or Integer.MAX_VALUE if the town has not been reached
+     */
+    public int distance(int id){
+        return labelled[id] == version ? distances[id] : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Gets the parent recorded with a town's distance
+     * @param id id of the town
+     * @return parent, or -1 if the town has not been reached or is the origin
+     */
+    public int parent(int id){
+        return labelled[id] == version ? parents[id] : -1;
+    }
+
+    /**
+     * Gets the road recorded with a town's distance
+     * @param id id of the town
+     * @return road the town was reached through, or null if none was recorded
+     */
+    public Road arrival(int id){
+        return labelled[id] == version ? arrivals[id] : null;
+    }
+
+    /**
+     * Determines if a town has been settled
+     * @param id id of the town
+     * @return true if the town's distance is final
+     */
+    public boolean isSettled(int id){
+        return settled[id] == version;
+    }
+
+    /**
+     * Offers a new tentative distance for a town
+     * @param id id of the town
+     * @param distance distance through the parent
+     * @param parent value to record with the distance, such as the arc used
+     * @return true if the distance improved the town's label
+     */
+    public boolean relax(int id, int distance, int parent){
+        return relax(id, distance, parent, null);
+    }
+
+    /**
+     * Offers a new tentative distance for a town along with the road it arrives through
+     * @param id id of the town
+     * @param distance distance through the parent
+     * @param parent value to record with the distance, such as the arc used
+     * @param arrival road to record with the distance
+     * @return true if the distance improved the town's label
+     */
+    public boolean relax(int id, int distance, int parent, Road arrival){
+        if(settled[id] == version || distance >= distance(id)){
+            return false;
+        }
+
+        distances[id] = distance;
+        parents[id] = parent;
+        arrivals[id] = arrival;
+        labelled[id] = version;
+        queue.offer(id, distance);
+
+        return true;
+    }
+
+    /**
+     * Determines if any towns are left to settle
+     * @return true if the queue is empty
+     */
+    public boolean isEmpty(){
+        return queue.isEmpty();
+    }
+
+    /**
+     * Gets the distance of the next town that would be settled
+     * @return lowest tentative distance, or Integer.MAX_VALUE if the queue is empty
+     */
+    public int peekDistance(){
+        return queue.isEmpty() ? Integer.MAX_VALUE : queue.keyOf(queue.peek());
+    }
+
+    /**
+     * Settles the closest unsettled town, ties go to the lower id
+     * @return id of the settled town, or -1 if the queue is empty
+     */
+    public int settleNext(){
+        if(queue.isEmpty()){
+            return -1;
+        }
+
+        int id = queue.poll();
+        settled[id] = version;
+
+        return id;
+    }
+}
@@ -0,0 +1,64 @@
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class SearchWorkspaceTest {
+
+    @Test
+    public void testRelaxAndSettle() {
+        SearchWorkspace workspace = new SearchWorkspace().reset(4);
+
+        assertTrue(workspace.relax(2, 5, 7));
+        assertTrue(workspace.relax(1, 5, 3));
+        assertTrue(workspace.relax(2, 4, 8));
+        assertFalse(workspace.relax(1, 6, 9));
+
+        assertEquals(4, workspace.peekDistance());
+        assertEquals(2, workspace.settleNext());
+        assertEquals(8, workspace.parent(2));
+        assertFalse(workspace.relax(2, 0, 1));
+        assertEquals(1, workspace.settleNext());
+        assertEquals(-1, workspace.settleNext());
+        assertEquals(Integer.MAX_VALUE, workspace.distance(3));
+    }
+
+    @Test
+    public void testResetForgetsLabels() {
+        SearchWorkspace workspace = new SearchWorkspace().reset(3);
+        workspace.relax(0, 1, -1);
+        workspace.relax(1, 2, 0);
+        workspace.settleNext();
+
+        workspace.reset(3);
+        assertTrue(workspace.isEmpty());
+        assertFalse(workspace.isSettled(0));
+        assertEquals(Integer.MAX_VALUE, workspace.distance(1));
+        assertEquals(-1, workspace.parent(1));
+        assertTrue(workspace.relax(1, 9, 2));
+        assertEquals(1, workspace.settleNext());
+    }
+
+    @Test
+    public void testResetGrowsArrays() {
+        SearchWorkspace workspace = new SearchWorkspace().reset(2);
+        workspace.relax(1, 1, -1);
+
+        workspace.reset(50);
+        assertTrue(workspace.relax(49, 3, -1));
+        assertEquals(Integer.MAX_VALUE, workspace.distance(1));
+    }
+
+    @Test
+    public void testWorkspacesArePerThread() throws Exception {
+        SearchWorkspace mine = SearchWorkspace.forward(4);
+        SearchWorkspace[] theirs = new SearchWorkspace[1];
+
+        Thread thread = new Thread(() -> theirs[0] = SearchWorkspace.forward(4));
+        thread.start();
+        thread.join();
+
+        assertNotSame(mine, theirs[0]);
+        assertSame(mine, SearchWorkspace.forward(4));
+        assertNotSame(mine, SearchWorkspace.backward(4));
+    }
+}
@@ -0,0 +1,159 @@
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of full shortest path trees keyed by source town
+ * A tree answers every destination from its source by following the arriving roads back, so a run of
+ * queries from a few sources costs one Dijkstra run per source. The least recently used tree is evicted
+ * once the cache is full. Every tree is dropped as soon as the graph's modification count moves, so a
+ * cached answer is never older than the graph. Like the find methods of Graph, the cache can be queried
+ * by any number of threads while the graph is not being changed: the map and the statistics are guarded
+ * by the cache's monitor, and trees are built outside it so misses on different sources run in parallel
+ */
+public class ShortestPathCache {
+    private Graph graph;
+    private final int capacity;
+    private final LinkedHashMap<Town, ShortestPathResult> trees;
+    private int modCount;
+    private long hits, misses, evictions, invalidations;
+
+    /**
+     * Constructs an empty cache over a graph
+     * @param graph graph to answer queries on
+     * @param capacity largest number of trees to keep
+     */
+    public ShortestPathCache(Graph graph, int capacity){
+        if(graph == null){
+            throw new NullPointerException();
+        }
+        if(capacity < 1){
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+
+        this.graph = graph;
+        this.capacity = capacity;
+        modCount = graph.modCount;
+        trees = new LinkedHashMap<Town, ShortestPathResult>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Town, ShortestPathResult> eldest) {
+                if(size() > ShortestPathCache.this.capacity){
+                    evictions++;
+                    return true;
+                }
+
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Moves the cache to another graph, dropping every tree but keeping the statistics
+     * @param graph graph to answer queries on
+     */
+    synchronized void setGraph(Graph graph){
+        this.graph = graph;
+        modCount = graph.modCount;
+        trees.clear();
+    }
+
+    /**
+     * Gets the shortest path tree of a source, running Dijkstra's algorithm only if the tree is not cached
+     * @param sourceVertex town the tree starts from
+     * @return distance and predecessor of every town reachable from the source
+     */
+    public ShortestPathResult tree(Town sourceVertex){
+        Graph searched;
+        int searchedModCount;
+
+        synchronized(this){
+            if(modCount != graph.modCount){
+                if(!trees.isEmpty()){
+                    invalidations++;
+                    trees.clear();
+                }
+                modCount = graph.modCount;
+            }
+
+            ShortestPathResult tree = trees.get(sourceVertex);
+
+            if(tree != null){
+                hits++;
+                return tree;
+            }
+
+            misses++;
+            searched = graph;
+            searchedModCount = modCount;
+        }
+
+        //Two threads missing on the same source may both build its tree, the second one simply replaces the first
+        ShortestPathResult tree = searched.findShortestPaths(sourceVertex);
+
+        synchronized(this){
+            if(graph == searched && modCount == searchedModCount){
+                trees.put(sourceVertex, tree);
+            }
+        }
+
+        return tree;
+    }
+
+    /**
+     * Finds the shortest path between two towns from the source's cached tree
+     * @param sourceVertex starting town
+     * @param destinationVertex ending town
+     * @return an ArrayList in the format of Graph.shortestPath, empty if there is no path
+     */
+    public ArrayList<String> shortestPath(Town sourceVertex, Town destinationVertex){
+        return tree(sourceVertex).pathTo(destinationVertex);
+    }
+
+    /**
+     * Gets the number of queries answered from a cached tree
+     * @return number of hits
+     */
+    public synchronized long hits(){
+        return hits;
+    }
+
+    /**
+     * Gets the number of queries that had to build a tree
+     * @return number of misses
+     */
+    public synchronized long misses(){
+        return misses;
+    }
+
+    /**
+     * Gets the number of trees dropped to make room for newer ones
+     * @return number of evictions
+     */
+    public synchronized long evictions(){
+        return evictions;
+    }
+
+    /**
+     * Gets the number of times the cache was emptied because the graph changed
+     * @return number of invalidations
+     */
+    public synchronized long invalidations(){
+        return invalidations;
+    }
+
+    /**
+     * Gets the number of cached trees
+     * @return number of trees
+     */
+    public synchronized int size(){
+        return trees.size();
+    }
+
+    /**
+     * Gets the largest number of trees the cache keeps
+     * @return capacity of the cache
+     */
+    public int capacity(){
+        return capacity;
+    }
+}
@@ -0,0 +1,131 @@
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ShortestPathCacheTest {
+    private Graph graph;
+    private ShortestPathCache cache;
+    private Town[] towns;
+
+    @Before
+    public void setUp() {
+        RoadNetworkGenerator generator = new RoadNetworkGenerator(RoadNetworkGenerator.Shape.GRID, 400, 11);
+        graph = generator.toGraph();
+        cache = new ShortestPathCache(graph, 2);
+        towns = generator.towns();
+    }
+
+    @Test
+    public void testAnswersEveryDestination() {
+        for (int i = 1; i < 400; i += 7) {
+            assertEquals(graph.findShortestPath(towns[0], towns[i]).getDistance(), TestRoutes.length(cache.shortestPath(towns[0], towns[i])));
+        }
+
+        assertEquals(1, cache.misses());
+        assertEquals(56, cache.hits());
+        assertTrue(cache.shortestPath(towns[0], towns[0]).isEmpty());
+        assertTrue(cache.shortestPath(towns[0], new Town("Nowhere")).isEmpty());
+        assertTrue(cache.shortestPath(new Town("Nowhere"), towns[0]).isEmpty());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() {
+        cache.tree(towns[0]);
+        cache.tree(towns[1]);
+        cache.tree(towns[0]);
+        cache.tree(towns[2]);
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.evictions());
+
+        cache.tree(towns[0]);
+        cache.tree(towns[1]);
+        assertEquals(2, cache.hits());
+        assertEquals(4, cache.misses());
+        assertEquals(2, cache.evictions());
+    }
+
+    @Test
+    public void testChangesInvalidate() {
+        Town a = towns[0], b = towns[399];
+        int before = TestRoutes.length(cache.shortestPath(a, b));
+
+        graph.addEdge(a, b, 1, "Shortcut");
+        assertEquals(1, cache.shortestPath(a, b).size());
+        assertEquals(1, cache.invalidations());
+
+        graph.removeEdge(a, b, 1, "Shortcut");
+        assertEquals(before, TestRoutes.length(cache.shortestPath(a, b)));
+        assertEquals(2, cache.invalidations());
+
+        Town middle = graph.findShortestPath(a, b).getPredecessors().get(b);
+        graph.removeVertex(middle);
+        assertFalse(cache.tree(a).isReachable(middle));
+        assertEquals(3, cache.invalidations());
+        assertEquals(0, cache.hits());
+
+        graph.removeVertex(new Town("Nowhere"));
+        cache.tree(a);
+        assertEquals(1, cache.hits());
+    }
+
+    @Test
+    public void testManagerCache() throws IOException {
+        File file = File.createTempFile("towns", ".txt");
+        file.deleteOnExit();
+        new RoadNetworkGenerator(RoadNetworkGenerator.Shape.SCALE_FREE, 300, 2).write(file);
+
+        TownGraphManager manager = new TownGraphManager();
+        manager.enablePathCache(4);
+        manager.getPath("Town_0", "Town_1");
+        manager.populateTownGraph(file, new ForkJoinPool(2));
+
+        TownGraphManager uncached = new TownGraphManager();
+        uncached.populateTownGraph(file);
+
+        for (int i = 1; i < 300; i += 13) {
+            assertEquals(TestRoutes.length(uncached.getPath("Town_5", "Town_" + i)), TestRoutes.length(manager.getPath("Town_5", "Town_" + i)));
+        }
+        assertEquals(2, manager.getPathCache().misses());
+
+        manager.deleteTown("Town_5");
+        assertTrue(manager.getPath("Town_5", "Town_7").isEmpty());
+        assertEquals(3, manager.getPathCache().misses());
+    }
+
+    @Test
+    public void testConcurrentQueries() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> results = new ArrayList<>();
+
+        try {
+            for (int t = 0; t < 4; t++) {
+                int offset = t;
+                results.add(executor.submit(() -> {
+                    for (int i = 0; i < 300; i++) {
+                        Town source = towns[(i + offset) % 5], destination = towns[(i * 31 + offset) % 400];
+                        assertEquals(graph.findShortestPath(source, destination).getDistance(), TestRoutes.length(cache.shortestPath(source, destination)));
+                    }
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(1200, cache.hits() + cache.misses());
+        assertTrue(cache.size() <= cache.capacity());
+    }
+}
@@ -0,0 +1,141 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable result of a shortest path query
+ * Holds the final distance and the arriving road of every town the search settled,
+ * along with the path to the destination when one was requested
+ */
+public final class ShortestPathResult {
+    private final Town source;
+    private final Town destination;
+    private final Map<Town, Integer> distances;
+    private final Map<Town, Road> arrivals;
+    private final Map<Town, Town> predecessors;
+    private final List<String> path;
+
+    /**
+     * Constructs a result from the labels of a finished search
+     * The maps are taken over by the result and must not be changed afterwards
+     * @param source town the search started from
+     * @param destination town the path was requested for, or null for a full tree
+     * @param distances final distance of every settled town
+     * @param arrivals road each settled town other than the source was reached through
+     */
+    ShortestPathResult(Town source, Town destination, Map<Town, Integer> distances, Map<Town, Road> arrivals){
+        this.source = source;
+        this.destination = destination;
+        this.distances = Collections.unmodifiableMap(distances);
+        this.arrivals = arrivals;
+
+        Map<Town, Town> previous = new HashMap<>();
+        for(Map.Entry<Town, Road> arrival : arrivals.entrySet()){
+            previous.put(arrival.getKey(), arrival.getValue().getOtherTown(arrival.getKey()));
+        }
+        predecessors = Collections.unmodifiableMap(previous);
+
+        path = Collections.unmodifiableList(destination == null ? new ArrayList<>() : pathTo(destination));
+    }
+
+    /**
+     * Gets the town the search started from
+     * @return source town
+     */
+    public Town getSource(){
+        return source;
+    }
+
+    /**
+     * Gets the town the path was requested for
+     * @return destination town, or null if the result is a full tree
+     */
+    public Town getDestination(){
+        return destination;
+    }
+
+    /**
+     * Gets the distance of every settled town
+     * @return read-only map of towns to their distance from the source
+     */
+    public Map<Town, Integer> getDistances(){
+        return distances;
+    }
+
+    /**
+     * Gets the predecessor of every settled town other than the source
+     * @return read-only map of towns to the town before them on their shortest path
+     */
+    public Map<Town, Town> getPredecessors(){
+        return predecessors;
+    }
+
+    /**
+     * Gets the path to the destination
+     * @return read-only list in the format of Graph.shortestPath, empty if there is no path
+     */
+    public List<String> getPath(){
+        return path;
+    }
+
+    /**
+     * Gets the distance to the destination
+     * @return length of the path, or Integer.MAX_VALUE if there is no path
+     */
+    public int getDistance(){
+        return destination == null ? Integer.MAX_VALUE : distanceTo(destination);
+    }
+
+    /**
+     * Determines if a town was reached by the search
+     * @param town town to check
+     * @return true if the town's distance is known
+     */
+    public boolean isReachable(Town town){
+        return distances.containsKey(town);
+    }
+
+    /**
+     * Gets the distance to a town
+     * @param town town to check
+     * @return distance from the source, or Integer.MAX_VALUE if the town was not reached
+     */
+    public int distanceTo(Town town){
+        Integer distance = distances.get(town);
+        return distance == null ? Integer.MAX_VALUE : distance;
+    }
+
+    /**
+     * Gets the town before a town on its shortest path
+     * @param town town to check
+     * @return predecessor, or null for the source and towns that were not reached
+     */
+    public Town predecessorOf(Town town){
+        return predecessors.get(town);
+    }
+
+    /**
+     * Builds the path to any town the search reached
+     * @param town town to build the path to
+     * @return an ArrayList in the format of Graph.shortestPath, empty if the town was not reached
+     */
+    public ArrayList<String> pathTo(Town town){
+        if(!distances.containsKey(town)){
+            return new ArrayList<>();
+        }
+
+        LinkedList<Road> roads = new LinkedList<>();
+        Town current = town;
+
+        while(!current.equals(source)){
+            Road road = arrivals.get(current);
+            roads.addFirst(road);
+            current = road.getOtherTown(current);
+        }
+
+        return Graph.describeRoute(source, roads);
+    }
+}
@@ -0,0 +1,116 @@
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ShortestPathResultTest {
+    private Graph graph;
+    private Town[] town;
+
+    @Before
+    public void setUp() throws Exception {
+        graph = new Graph();
+        town = new Town[12];
+
+        for (int i = 1; i < 12; i++) {
+            town[i] = new Town("Town_" + i);
+            graph.addVertex(town[i]);
+        }
+
+        graph.addEdge(town[1], town[2], 2, "Road_1");
+        graph.addEdge(town[1], town[3], 4, "Road_2");
+        graph.addEdge(town[1], town[5], 6, "Road_3");
+        graph.addEdge(town[3], town[7], 1, "Road_4");
+        graph.addEdge(town[3], town[8], 2, "Road_5");
+        graph.addEdge(town[4], town[8], 3, "Road_6");
+        graph.addEdge(town[6], town[9], 3, "Road_7");
+        graph.addEdge(town[9], town[10], 4, "Road_8");
+        graph.addEdge(town[8], town[10], 2, "Road_9");
+        graph.addEdge(town[5], town[10], 5, "Road_10");
+        graph.addEdge(town[10], town[11], 3, "Road_11");
+        graph.addEdge(town[2], town[11], 6, "Road_12");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        graph = null;
+    }
+
+    @Test
+    public void testFindShortestPath() {
+        ShortestPathResult result = graph.findShortestPath(town[1], new Town("Town_10"));
+
+        assertEquals(8, result.getDistance());
+        assertEquals(town[8], result.predecessorOf(town[10]));
+        assertEquals("Town_3 via Road_5 to Town_8 2 mi", result.getPath().get(1));
+        assertEquals(graph.shortestPath(town[1], town[10]), result.getPath());
+        assertNull(graph.shortestDistances);
+    }
+
+    @Test
+    public void testFindShortestPaths() {
+        ShortestPathResult tree = graph.findShortestPaths(town[4]);
+
+        assertNull(tree.getDestination());
+        assertTrue(tree.getPath().isEmpty());
+        assertEquals(11, tree.getDistances().size());
+        assertEquals(0, tree.distanceTo(town[4]));
+        assertNull(tree.predecessorOf(town[4]));
+        assertEquals(graph.shortestPath(town[4], town[6]), tree.pathTo(town[6]));
+    }
+
+    @Test
+    public void testUnreachable() {
+        Town island = new Town("Island");
+        graph.addVertex(island);
+        ShortestPathResult result = graph.findShortestPath(town[1], island);
+
+        assertFalse(result.isReachable(island));
+        assertEquals(Integer.MAX_VALUE, result.getDistance());
+        assertTrue(result.getPath().isEmpty());
+        assertTrue(graph.findShortestPath(town[1], new Town("Town_12")).getPath().isEmpty());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testResultIsReadOnly() {
+        graph.findShortestPath(town[1], town[11]).getDistances().put(town[1], 5);
+    }
+
+    @Test
+    public void testConcurrentQueries() throws Exception {
+        ArrayList<List<String>> expected = new ArrayList<>();
+        for (int i = 1; i < 12; i++) {
+            expected.add(graph.shortestPath(town[1], town[i]));
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            ArrayList<Future<Boolean>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(pool.submit(() -> {
+                    for (int round = 0; round < 200; round++) {
+                        for (int i = 1; i < 12; i++) {
+                            if (!expected.get(i - 1).equals(graph.findShortestPath(town[1], town[i]).getPath())) {
+                                return false;
+                            }
+                        }
+                    }
+                    return true;
+                }));
+            }
+
+            for (Future<Boolean> future : futures) {
+                assertTrue(future.get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TargetedSearchTest {
+    private TownGraphManager manager;
+    private Graph graph;
+
+    @Before
+    public void setUp() {
+        manager = new TownGraphManager();
+        graph = new Graph();
+
+        for (String town : new String[]{"A", "B", "C", "D", "E", "Island"}) {
+            manager.addTown(town);
+            graph.addVertex(new Town(town));
+        }
+
+        road("A", "B", 1, "AB");
+        road("B", "C", 1, "BC");
+        road("A", "C", 2, "AC");
+        road("B", "D", 4, "BD long");
+        road("B", "D", 2, "BD short");
+        road("D", "E", 7, "DE");
+    }
+
+    private void road(String town1, String town2, int weight, String name) {
+        manager.addRoad(town1, town2, weight, name);
+        graph.addEdge(new Town(town1), new Town(town2), weight, name);
+    }
+
+    @Test
+    public void testDistancesAndPaths() {
+        List<String> targets = Arrays.asList("D", "B", "C", "A", "D");
+
+        Map<String, Integer> distances = manager.getDistances("A", targets);
+        Map<String, ArrayList<String>> paths = manager.getPaths("A", targets);
+
+        assertEquals(Arrays.asList("D", "B", "C", "A"), new ArrayList<>(distances.keySet()));
+        assertEquals(Arrays.asList(3, 1, 2, 0), new ArrayList<>(distances.values()));
+
+        //The shorter of the two parallel roads
+        assertEquals(Arrays.asList("A via AB to B 1 mi", "B via BD short to D 2 mi"), paths.get("D"));
+        assertEquals(Arrays.asList("A via AB to B 1 mi"), paths.get("B"));
+        //Two routes of 2 miles tie, either one is a shortest path
+        List<List<String>> tied = Arrays.asList(Arrays.asList("A via AC to C 2 mi"), Arrays.asList("A via AB to B 1 mi", "B via BC to C 1 mi"));
+        assertTrue(tied.contains(paths.get("C")));
+        assertTrue(paths.get("A").isEmpty());
+    }
+
+    @Test
+    public void testStopsAtFarthestTarget() {
+        ShortestPathResult result = graph.findShortestPaths(new Town("A"), Arrays.asList(new Town("B"), new Town("C")));
+
+        assertEquals(1, result.distanceTo(new Town("B")));
+        assertEquals(2, result.distanceTo(new Town("C")));
+        assertFalse(result.isReachable(new Town("D")));
+        assertFalse(result.isReachable(new Town("E")));
+
+        ShortestPathResult far = graph.findShortestPaths(new Town("A"), Collections.singleton(new Town("E")));
+        assertEquals(10, far.distanceTo(new Town("E")));
+        assertEquals(5, far.getDistances().size());
+    }
+
+    @Test
+    public void testMissingTowns() {
+        Map<String, Integer> distances = manager.getDistances("A", Arrays.asList("Island", "Nowhere", "E"));
+        assertEquals(Integer.MAX_VALUE, (int) distances.get("Island"));
+        assertEquals(Integer.MAX_VALUE, (int) distances.get("Nowhere"));
+        assertEquals(10, (int) distances.get("E"));
+
+        assertTrue(manager.getPaths("A", Arrays.asList("Island")).get("Island").isEmpty());
+        assertTrue(manager.getPaths("Nowhere", Arrays.asList("A")).get("A").isEmpty());
+        assertTrue(manager.getDistances("A", new ArrayList<>()).isEmpty());
+        assertTrue(graph.findShortestPaths(new Town("A"), new ArrayList<>()).getDistances().isEmpty());
+    }
+
+    @Test
+    public void testMatchesFullTree() {
+        RoadNetworkGenerator generator = new RoadNetworkGenerator(RoadNetworkGenerator.Shape.GRID, 10000, 9);
+        TownGraphManager large = generator.toManager();
+        ShortestPathResult tree = generator.toGraph().findShortestPaths(new Town("Town_0"));
+        List<String> targets = Arrays.asList("Town_5", "Town_9999", "Town_4321", "Town_0");
+
+        Map<String, Integer> distances = large.getDistances("Town_0", targets);
+        Map<String, ArrayList<String>> paths = large.getPaths("Town_0", targets);
+
+        for (String target : targets) {
+            assertEquals(tree.distanceTo(new Town(target)), (int) distances.get(target));
+        }
+        assertEquals((int) distances.get("Town_4321"), TestRoutes.length(paths.get("Town_4321")));
+        assertTrue(paths.get("Town_4321").get(0).startsWith("Town_0 via "));
+    }
+}
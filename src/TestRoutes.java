@@ -0,0 +1,23 @@
+import java.util.List;
+
+/**
+ * Helpers for tests that check routes in the "town via road to town distance mi" format of shortestPath
+ */
+public class TestRoutes {
+    private TestRoutes() {
+    }
+
+    /**
+     * Adds up the miles of a route
+     * @param route one entry per road, as returned by shortestPath
+     * @return total distance of the route
+     */
+    public static int length(List<String> route) {
+        int total = 0;
+        for (String step : route) {
+            String[] words = step.split(" ");
+            total += Integer.parseInt(words[words.length - 2]);
+        }
+        return total;
+    }
+}
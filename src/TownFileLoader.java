@@ -0,0 +1,294 @@
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads road files in the format of TownGraphManager.populateTownGraph straight from bytes
+ * Each line is "road,weight;town1;town2", where either separator may be used between any two fields.
+ * The file is read through a FileChannel in large blocks and the fields are parsed in place, so the
+ * only Strings created are the name of each road and one name per distinct town
+ */
+class TownFileLoader {
+    static final int BLOCK_SIZE = 1 << 20;
+
+    private Graph graph;
+    private TownTable towns;
+    private int blockSize;
+    private long line;
+
+    /**
+     * Constructs a loader that adds to a graph
+     * @param graph graph to add the roads and towns to
+     */
+    TownFileLoader(Graph graph){
+        this(graph, BLOCK_SIZE);
+    }
+
+    /**
+     * Constructs a loader that reads in blocks of a given size, lines longer than a block grow it
+     * @param graph graph to add the roads and towns to
+     * @param blockSize number of bytes read at a time
+     */
+    TownFileLoader(Graph graph, int blockSize){
+        this.graph = graph;
+        this.blockSize = blockSize;
+        towns = new TownTable();
+    }
+
+    /**
+     * Adds every road in a file to the graph, adding each town the first time it appears
+     * Blank lines are skipped
+     * @param file file to read
+     * @return number of roads added
+     * @throws IOException if the file cannot be read or a line is malformed
+     */
+    long load(File file) throws IOException {
+        long roads = 0;
+        line = 0;
+
+        try(FileInputStream input = new FileInputStream(file); FileChannel channel = input.getChannel()){
+            ByteBuffer buffer = ByteBuffer.allocate(blockSize);
+
+            while(true){
+                boolean finished = channel.read(buffer) == -1;
+                byte[] bytes = buffer.array();
+                int limit = buffer.position();
+                int lineStart = 0;
+
+                for(int i = 0; i < limit; i++){
+                    if(bytes[i] == '\n'){
+                        roads += parseLine(bytes, lineStart, i);
+                        lineStart = i + 1;
+                    }
+                }
+
+                if(finished){
+                    roads += parseLine(bytes, lineStart, limit);
+                    return roads;
+                }
+
+                //Carry the unfinished line to the front of the block, growing the block if the line fills it
+                if(lineStart == 0 && limit == bytes.length){
+                    buffer = ByteBuffer.allocate(2 * bytes.length).put(bytes, 0, limit);
+                } else {
+                    System.arraycopy(bytes, lineStart, bytes, 0, limit - lineStart);
+                    buffer.position(limit - lineStart);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the road on every line in a range of bytes, the last line does not need to end in a newline
+     * Only bytes up to a newline or the end of the range count as a line, so a range ending in a newline
+     * holds exactly as many lines as it has newlines
+     * @param bytes bytes holding the lines
+     * @param start index of the first byte of the first line
+     * @param end index after the last byte
+     * @return number of roads added
+     * @throws IOException if a line is malformed
+     */
+    long parse(byte[] bytes, int start, int end) throws IOException {
+        long roads = 0;
+        int lineStart = start;
+
+        for(int i = start; i < end; i++){
+            if(bytes[i] == '\n'){
+                roads += parseLine(bytes, lineStart, i);
+                lineStart = i + 1;
+            }
+        }
+
+        return lineStart < end ? roads + parseLine(bytes, lineStart, end) : roads;
+    }
+
+    /**
+     * Gets the number of lines parsed so far, including blank lines
+     * @return number of lines
+     */
+    long lineCount(){
+        return line;
+    }
+
+    /**
+     * Adds a parsed road to the graph
+     * @param roadName name of the road
+     * @param weight weight of the road
+     * @param town1 town at one end
+     * @param town2 town at the other end
+     */
+    void addRoad(String roadName, int weight, Town town1, Town town2){
+        graph.addEdge(town1, town2, weight, roadName);
+    }
+
+    /**
+     * Finds the town for a name seen for the first time, adding it to the graph if it is new
+     * @param name name of the town
+     * @return town with the name
+     */
+    Town resolve(String name){
+        Town town = graph.getVertex(name);
+
+        if(town == null){
+            town = new Town(name);
+            graph.addVertex(town);
+        }
+
+        return town;
+    }
+
+    /**
+     * Builds the exception for a malformed line
+     * @param problem description of what is wrong with the line
+     * @return exception naming the current line
+     */
+    IOException malformed(String problem){
+        return new IOException("Line " + line + " " + problem);
+    }
+
+    /**
+     * Adds the road on one line
+     * @return 1 if a road was added, 0 for a blank line
+     */
+    private int parseLine(byte[] bytes, int start, int end) throws IOException {
+        line++;
+
+        if(end > start && bytes[end - 1] == '\r'){
+            end--;
+        }
+        if(start == end){
+            return 0;
+        }
+
+        int roadEnd = nextDelimiter(bytes, start, end);
+        int weightEnd = nextDelimiter(bytes, roadEnd + 1, end);
+        int town1End = nextDelimiter(bytes, weightEnd + 1, end);
+        if(town1End >= end){
+            throw malformed("does not have a road, weight and two towns");
+        }
+        int town2End = nextDelimiter(bytes, town1End + 1, end);
+
+        String roadName = new String(bytes, start, roadEnd - start, StandardCharsets.UTF_8);
+        int weight = parseWeight(bytes, roadEnd + 1, weightEnd);
+        Town town1 = towns.get(bytes, weightEnd + 1, town1End - weightEnd - 1);
+        Town town2 = towns.get(bytes, town1End + 1, town2End - town1End - 1);
+
+        addRoad(roadName, weight, town1, town2);
+
+        return 1;
+    }
+
+    private static int nextDelimiter(byte[] bytes, int from, int end){
+        for(int i = from; i < end; i++){
+            if(bytes[i] == ',' || bytes[i] == ';'){
+                return i;
+            }
+        }
+
+        return end;
+    }
+
+    private int parseWeight(byte[] bytes, int start, int end) throws IOException {
+        boolean negative = start < end && bytes[start] == '-';
+        int i = start < end && (bytes[start] == '-' || bytes[start] == '+') ? start + 1 : start;
+
+        if(i == end){
+            throw malformed("has no weight");
+        }
+
+        long value = 0;
+        for(; i < end; i++){
+            int digit = bytes[i] - '0';
+
+            if(digit < 0 || digit > 9 || value > Integer.MAX_VALUE){
+                throw malformed("has an invalid weight");
+            }
+
+            value = 10 * value + digit;
+        }
+
+        value = negative ? -value : value;
+        if(value < Integer.MIN_VALUE || value > Integer.MAX_VALUE){
+            throw malformed("has an invalid weight");
+        }
+
+        return (int) value;
+    }
+
+    /**
+     * Open addressing table from the bytes of a town name to the town in the graph
+     * Names are only decoded the first time they are seen
+     */
+    private class TownTable {
+        private int[] hashes;
+        private byte[][] keys;
+        private Town[] values;
+        private int size;
+
+        private TownTable(){
+            hashes = new int[1024];
+            keys = new byte[1024][];
+            values = new Town[1024];
+        }
+
+        private Town get(byte[] bytes, int offset, int length){
+            int hash = 1;
+            for(int i = offset; i < offset + length; i++){
+                hash = 31 * hash + bytes[i];
+            }
+            hash ^= hash >>> 16;
+
+            int mask = keys.length - 1;
+            int slot = hash & mask;
+
+            while(keys[slot] != null){
+                if(hashes[slot] == hash && Arrays.equals(keys[slot], 0, keys[slot].length, bytes, offset, offset + length)){
+                    return values[slot];
+                }
+
+                slot = (slot + 1) & mask;
+            }
+
+            Town town = resolve(new String(bytes, offset, length, StandardCharsets.UTF_8));
+
+            hashes[slot] = hash;
+            keys[slot] = Arrays.copyOfRange(bytes, offset, offset + length);
+            values[slot] = town;
+
+            if(++size > keys.length / 2){
+                grow();
+            }
+
+            return town;
+        }
+
+        private void grow(){
+            int[] oldHashes = hashes;
+            byte[][] oldKeys = keys;
+            Town[] oldValues = values;
+
+            hashes = new int[2 * oldKeys.length];
+            keys = new byte[2 * oldKeys.length][];
+            values = new Town[2 * oldKeys.length];
+            int mask = keys.length - 1;
+
+            for(int i = 0; i < oldKeys.length; i++){
+                if(oldKeys[i] != null){
+                    int slot = oldHashes[i] & mask;
+
+                    while(keys[slot] != null){
+                        slot = (slot + 1) & mask;
+                    }
+
+                    hashes[slot] = oldHashes[i];
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TownFileLoaderTest {
+    private Graph graph;
+
+    @Before
+    public void setUp() {
+        graph = new Graph();
+    }
+
+    private File write(String text) throws IOException {
+        File file = File.createTempFile("towns", ".txt");
+        file.deleteOnExit();
+
+        try (FileOutputStream output = new FileOutputStream(file)) {
+            output.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+
+        return file;
+    }
+
+    @Test
+    public void testLoad() throws IOException {
+        File file = write("I-95,12;Town A;Town B\r\nRoute 1;4,Town B;Town C\n\nI-95,7;Town C;Town A");
+
+        assertEquals(3, new TownFileLoader(graph).load(file));
+        assertEquals(3, graph.vertexSet().size());
+        assertEquals(12, graph.getEdge(new Town("Town A"), new Town("Town B")).getWeight());
+        assertEquals("Route 1", graph.getEdge(new Town("Town C"), new Town("Town B")).getName());
+        assertEquals(7, graph.getEdge(new Town("Town A"), new Town("Town C")).getWeight());
+    }
+
+    @Test
+    public void testTownsAreShared() throws IOException {
+        Town existing = new Town("Town A");
+        graph.addVertex(existing);
+
+        new TownFileLoader(graph).load(write("Road_1,1;Town A;Town B\nRoad_2,2;Town B;Town A\n"));
+
+        assertSame(existing, graph.getVertex("Town A"));
+        assertEquals(2, existing.getRoads().size());
+        assertSame(graph.getVertex("Town B"), graph.getEdge(existing, new Town("Town B")).getDestination());
+    }
+
+    @Test
+    public void testLinesLongerThanBlock() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            text.append("Road_").append(i).append(",").append(i + 1).append(";Town_").append(i).append(";Town_").append(i + 1).append("\n");
+        }
+
+        assertEquals(50, new TownFileLoader(graph, 8).load(write(text.toString())));
+        assertEquals(51, graph.vertexSet().size());
+        assertEquals(50, graph.getEdge(new Town("Town_49"), new Town("Town_50")).getWeight());
+    }
+
+    @Test
+    public void testMatchesGeneratedGraph() throws IOException {
+        RoadNetworkGenerator generator = new RoadNetworkGenerator(RoadNetworkGenerator.Shape.SCALE_FREE, 2000, 5);
+        File file = File.createTempFile("network", ".txt");
+        file.deleteOnExit();
+        generator.write(file);
+
+        new TownFileLoader(graph, 4096).load(file);
+        Graph expected = generator.toGraph();
+
+        assertEquals(expected.vertexSet(), graph.vertexSet());
+        for (Road road : expected.edgeSet()) {
+            Road loaded = graph.getEdge(road.getSource(), road.getDestination());
+            assertEquals(road.getName(), loaded.getName());
+            assertEquals(road.getWeight(), loaded.getWeight());
+        }
+    }
+
+    @Test
+    public void testMalformedLine() throws IOException {
+        File file = write("Road_1,1;Town A;Town B\nRoad_2,x;Town B;Town C\n");
+
+        try {
+            new TownFileLoader(graph).load(file);
+            fail("Expected an IOException");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("Line 2"));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testMissingTown() throws IOException {
+        new TownFileLoader(graph).load(write("Road_1,1;Town A\n"));
+    }
+}
@@ -2,9 +2,13 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.Scanner;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Manager class for graph
@@ -12,6 +16,7 @@ import java.util.Set;
  */
 public class TownGraphManager implements  TownGraphManagerInterface{
     private Graph graph;
+    private volatile ShortestPathCache pathCache;
 
     /**
      * Default constructor
@@ -73,7 +78,7 @@ public class TownGraphManager implements  TownGraphManagerInterface{
      */
     @Override
     public boolean containsTown(String v) {
-        return graph.containsVertex(new Town(v));
+        return graph.getVertex(v) != null;
     }
 
     /**
@@ -157,37 +162,237 @@ public class TownGraphManager implements  TownGraphManagerInterface{
      */
     @Override
     public ArrayList<String> getPath(String town1, String town2) {
+        ShortestPathCache cache = pathCache;
+        if(cache != null){
+            return cache.shortestPath(new Town(town1), new Town(town2));
+        }
+
         return graph.shortestPath(new Town(town1), new Town(town2));
     }
 
+    /**
+     * Gets a shortest path between two towns with a chosen search strategy
+     * @param town1 name of town 1 (lastname, firstname)
+     * @param town2 name of town 2 (lastname, firstname)
+     * @param mode search strategy to use
+     * @return ArrayList of the path
+     */
+    public ArrayList<String> getPath(String town1, String town2, SearchMode mode) {
+        return graph.shortestPath(new Town(town1), new Town(town2), mode);
+    }
+
+    /**
+     * Gets the k shortest routes between two towns that visit no town twice, for offering alternatives
+     * The destination's shortest path tree is built once, or taken from the path cache when it is enabled,
+     * and guides every search for a detour
+     * @param town1 name of town 1 (lastname, firstname)
+     * @param town2 name of town 2 (lastname, firstname)
+     * @param k largest number of routes to return
+     * @return up to k routes, shortest first, each in the same format as getPath
+     */
+    public List<ArrayList<String>> getKShortestPaths(String town1, String town2, int k) {
+        Town destination = graph.getVertex(town2);
+
+        if(destination == null){
+            return new ArrayList<>();
+        }
+
+        ShortestPathCache cache = pathCache;
+        if(cache != null){
+            return new KShortestPaths(graph, destination, cache.tree(destination)).paths(new Town(town1), k);
+        }
+
+        return new KShortestPaths(graph, destination).paths(new Town(town1), k);
+    }
+
+    /**
+     * Gets the length of the shortest path from one town to each of a set of towns
+     * A single search runs until every target is settled, so nearby targets are cheap however large the graph is
+     * @param source name of the town to measure from
+     * @param targets names of the towns to measure to
+     * @return distance of each target in the order given, Integer.MAX_VALUE where there is no path
+     */
+    public Map<String, Integer> getDistances(String source, Collection<String> targets) {
+        ShortestPathResult result = graph.findShortestPaths(new Town(source), towns(targets));
+        Map<String, Integer> distances = new LinkedHashMap<>();
+
+        for(String target : targets){
+            distances.put(target, result.distanceTo(new Town(target)));
+        }
+
+        return distances;
+    }
+
+    /**
+     * Gets the shortest path from one town to each of a set of towns with a single search
+     * @param source name of the town to start from
+     * @param targets names of the towns to end at
+     * @return path to each target in the order given and in the same format as getPath, empty where there is no path
+     */
+    public Map<String, ArrayList<String>> getPaths(String source, Collection<String> targets) {
+        ShortestPathResult result = graph.findShortestPaths(new Town(source), towns(targets));
+        Map<String, ArrayList<String>> paths = new LinkedHashMap<>();
+
+        for(String target : targets){
+            paths.put(target, result.pathTo(new Town(target)));
+        }
+
+        return paths;
+    }
+
+    /**
+     * Gets every town within a distance of a town by road
+     * The search stops at the radius, so its cost grows with the number of towns inside it
+     * @param source name of the town to measure from
+     * @param radius largest distance to include
+     * @return distance of each town within the radius, closest first, including the source at distance 0
+     */
+    public Map<String, Integer> getTownsWithin(String source, int radius) {
+        return byDistance(graph.findTownsWithin(new Town(source), radius), null);
+    }
+
+    /**
+     * Gets the towns closest to a town by road
+     * The search halts after k towns are settled, so only the closest part of the graph is explored
+     * @param source name of the town to measure from
+     * @param k number of towns to return
+     * @return distance of each of the k closest towns other than the source, closest first,
+     * fewer if not that many towns can be reached
+     */
+    public Map<String, Integer> nearestTowns(String source, int k) {
+        return byDistance(graph.findNearestTowns(new Town(source), k), new Town(source));
+    }
+
+    private static Map<String, Integer> byDistance(ShortestPathResult result, Town excluded) {
+        List<Map.Entry<Town, Integer>> reached = new ArrayList<>(result.getDistances().entrySet());
+        reached.sort(Map.Entry.<Town, Integer>comparingByValue().thenComparing(Map.Entry.comparingByKey()));
+
+        Map<String, Integer> towns = new LinkedHashMap<>();
+        for(Map.Entry<Town, Integer> entry : reached){
+            if(!entry.getKey().equals(excluded)){
+                towns.put(entry.getKey().getName(), entry.getValue());
+            }
+        }
+
+        return towns;
+    }
+
+    /**
+     * Gets the length of the shortest path from every source town to every destination town
+     * The graph is frozen once and each distinct source is searched once on the common pool, stopping
+     * as soon as every destination is settled
+     * @param sources names of the towns to measure from
+     * @param destinations names of the towns to measure to
+     * @return distances indexed by source then destination, Integer.MAX_VALUE where there is no path
+     */
+    public int[][] getDistanceMatrix(List<String> sources, List<String> destinations) {
+        return getDistanceMatrix(sources, destinations, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Gets the length of the shortest path from every source town to every destination town on a chosen pool
+     * @param sources names of the towns to measure from
+     * @param destinations names of the towns to measure to
+     * @param pool pool to run the searches on
+     * @return distances indexed by source then destination, Integer.MAX_VALUE where there is no path
+     */
+    public int[][] getDistanceMatrix(List<String> sources, List<String> destinations, ForkJoinPool pool) {
+        return graph.freeze().distanceMatrix(towns(sources), towns(destinations), pool);
+    }
+
+    /**
+     * Gets the shortest path from every source town to every destination town
+     * @param sources names of the towns to start from
+     * @param destinations names of the towns to end at
+     * @param pool pool to run the searches on
+     * @return paths indexed by source then destination in the same format as getPath, empty where there is no path
+     */
+    public List<List<ArrayList<String>>> getPathMatrix(List<String> sources, List<String> destinations, ForkJoinPool pool) {
+        return graph.freeze().pathMatrix(towns(sources), towns(destinations), pool);
+    }
+
+    private static List<Town> towns(Collection<String> names) {
+        List<Town> towns = new ArrayList<>(names.size());
+
+        for(String name : names){
+            towns.add(new Town(name));
+        }
+
+        return towns;
+    }
+
+    /**
+     * Answers getPath from a cache of full shortest path trees, so repeated queries from the same towns
+     * run Dijkstra's algorithm once per town until the graph changes
+     * Paths of equal length may come out differently than without the cache. The cache is thread safe, so
+     * getPath stays safe for concurrent callers while the graph is not being changed
+     * @param capacity largest number of source towns to keep trees for
+     */
+    public void enablePathCache(int capacity) {
+        pathCache = new ShortestPathCache(graph, capacity);
+    }
+
+    /**
+     * Gets the cache used by getPath
+     * @return the path cache, or null if it is not enabled
+     */
+    public ShortestPathCache getPathCache() {
+        return pathCache;
+    }
+
     /**
      * Populates the graph from a file
+     * Each line is "road,weight;town1;town2", and the file is parsed straight from its bytes by TownFileLoader
      * @param file file with text to populate graph
      * @throws FileNotFoundException
      * @throws IOException
      */
     public void populateTownGraph(File file) throws FileNotFoundException, IOException {
-        Scanner scanner = new Scanner(file);
-        while(scanner.hasNext()){
-            String line = scanner.nextLine();
-            Scanner reader = new Scanner(line);
+        new TownFileLoader(graph).load(file);
+    }
 
-            reader.useDelimiter(",|;");
+    /**
+     * Populates the graph from a file, parsing and building on a ForkJoinPool
+     * The graph ends up the same as after populateTownGraph(File)
+     * @param file file with text to populate graph
+     * @param pool pool to load on
+     * @throws FileNotFoundException
+     * @throws IOException
+     */
+    public void populateTownGraph(File file, ForkJoinPool pool) throws FileNotFoundException, IOException {
+        new ParallelTownFileLoader(graph, pool).load(file);
+    }
 
-            String roadName = reader.next();
-            int roadWeight = Integer.parseInt(reader.next());
-            String town1 = reader.next();
-            String town2 = reader.next();
+    /**
+     * Saves the graph to a binary snapshot
+     * @param file file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void saveSnapshot(File file) throws IOException {
+        GraphSnapshot.save(graph, file);
+    }
 
-            if(!containsTown(town1)){
-                addTown(town1);
-            }
+    /**
+     * Saves the graph to a binary snapshot stamped with a generation
+     * @param file file to write
+     * @param generation generation recorded in the snapshot
+     * @throws IOException if the file cannot be written
+     */
+    void saveSnapshot(File file, long generation) throws IOException {
+        GraphSnapshot.save(graph, file, generation);
+    }
 
-            if(!containsTown(town2)){
-                addTown(town2);
-            }
+    /**
+     * Replaces the graph with one read from a binary snapshot
+     * @param file snapshot written by saveSnapshot
+     * @throws FileNotFoundException
+     * @throws IOException if the file cannot be read or is not a snapshot
+     */
+    public void loadSnapshot(File file) throws FileNotFoundException, IOException {
+        graph = GraphSnapshot.load(file);
 
-            addRoad(town1, town2, roadWeight, roadName);
+        if(pathCache != null){
+            pathCache.setGraph(graph);
         }
     }
 }
@@ -103,4 +103,17 @@ public class TownGraphManager_STUDENT_Test {
         assertEquals("Town1 via Road3 to Town3 1 mi", path.get(0));
         assertEquals("Town3 via Road4 to Town4 1 mi", path.get(1));
     }
+
+    @Test
+    public void testGetPathBidirectional(){
+        graphManager.addTown("Town5");
+        graphManager.addRoad("Town4", "Town5", 3, "Road5");
+
+        ArrayList<String> path = graphManager.getPath("Town1", "Town5", SearchMode.BIDIRECTIONAL);
+
+        assertEquals(3, path.size());
+        assertTrue(path.get(0).startsWith("Town1 via "));
+        assertEquals("Town4 via Road5 to Town5 3 mi", path.get(2));
+        assertTrue(graphManager.getPath("Town1", "Random Town", SearchMode.BIDIRECTIONAL).isEmpty());
+    }
 }
@@ -0,0 +1,96 @@
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TownsWithinTest {
+    private TownGraphManager manager;
+    private Graph graph;
+
+    @Before
+    public void setUp() {
+        manager = new TownGraphManager();
+        graph = new Graph();
+
+        for (String town : new String[]{"A", "B", "C", "D", "E", "Island"}) {
+            manager.addTown(town);
+            graph.addVertex(new Town(town));
+        }
+
+        road("A", "B", 2, "AB");
+        road("A", "C", 2, "AC");
+        road("C", "D", 3, "CD");
+        road("B", "D", 6, "BD long");
+        road("B", "D", 1, "BD short");
+        road("D", "E", 4, "DE");
+    }
+
+    private void road(String town1, String town2, int weight, String name) {
+        manager.addRoad(town1, town2, weight, name);
+        graph.addEdge(new Town(town1), new Town(town2), weight, name);
+    }
+
+    private static void assertTowns(Map<String, Integer> actual, Object... expected) {
+        List<Object> entries = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : actual.entrySet()) {
+            entries.add(entry.getKey());
+            entries.add(entry.getValue());
+        }
+        assertEquals(Arrays.asList(expected), entries);
+    }
+
+    @Test
+    public void testTownsWithinRadius() {
+        //Towns tied on the radius are all included, closest first and then by name
+        assertTowns(manager.getTownsWithin("A", 2), "A", 0, "B", 2, "C", 2);
+        assertTowns(manager.getTownsWithin("A", 3), "A", 0, "B", 2, "C", 2, "D", 3);
+        assertTowns(manager.getTownsWithin("A", 6), "A", 0, "B", 2, "C", 2, "D", 3);
+        assertTowns(manager.getTownsWithin("A", 7), "A", 0, "B", 2, "C", 2, "D", 3, "E", 7);
+        assertTowns(manager.getTownsWithin("A", Integer.MAX_VALUE), "A", 0, "B", 2, "C", 2, "D", 3, "E", 7);
+        assertTowns(manager.getTownsWithin("D", 3), "D", 0, "B", 1, "A", 3, "C", 3);
+    }
+
+    @Test
+    public void testPathsWithinRadius() {
+        ShortestPathResult within = graph.findTownsWithin(new Town("A"), 3);
+
+        //The shorter of the two parallel roads
+        assertEquals(Arrays.asList("A via AB to B 2 mi", "B via BD short to D 1 mi"), within.pathTo(new Town("D")));
+        assertFalse(within.isReachable(new Town("E")));
+        assertTrue(within.pathTo(new Town("E")).isEmpty());
+    }
+
+    @Test
+    public void testEdgeCases() {
+        assertTowns(manager.getTownsWithin("A", 0), "A", 0);
+        assertTowns(manager.getTownsWithin("Island", 1000), "Island", 0);
+        assertTrue(manager.getTownsWithin("A", -1).isEmpty());
+        assertTrue(manager.getTownsWithin("Nowhere", 1000).isEmpty());
+        assertEquals(1, graph.findTownsWithin(new Town("A"), 0).getDistances().size());
+    }
+
+    @Test
+    public void testMatchesFilteredTree() {
+        Graph large = new RoadNetworkGenerator(RoadNetworkGenerator.Shape.GRID, 10000, 29).toGraph();
+        Town source = new Town("Town_5050");
+        ShortestPathResult tree = large.findShortestPaths(source);
+        int radius = tree.distanceTo(new Town("Town_5055"));
+
+        ShortestPathResult within = large.findTownsWithin(source, radius);
+
+        int expected = 0;
+        for (Map.Entry<Town, Integer> entry : tree.getDistances().entrySet()) {
+            if (entry.getValue() <= radius) {
+                expected++;
+                assertEquals(entry.getValue(), within.getDistances().get(entry.getKey()));
+            }
+        }
+        assertEquals(expected, within.getDistances().size());
+        assertTrue(expected < 1000);
+    }
+}
@@ -0,0 +1,493 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Graph that publishes an immutable GraphVersion after every change
+ * Readers call current to take a version and can run any number of queries on it while writers
+ * keep changing the graph, every query seeing the graph exactly as it was when taken, and the
+ * version is reclaimed once no reader holds it. Taking a version is a single volatile read, so
+ * readers never wait for writers. Writers wait only for each other, copy the chunks they touch
+ * and publish the result in one store, so they never wait for readers. The query methods here
+ * run on the current version
+ */
+public class VersionedGraph implements GraphInterface<Town, Road> {
+    private final Map<String, Integer> ids;
+    private final Object writeLock;
+    private volatile GraphVersion current;
+    private int nextId;
+
+    /**
+     * Default Constructor
+     */
+    public VersionedGraph(){
+        ids = new ConcurrentHashMap<>();
+        writeLock = new Object();
+        current = new GraphVersion(0, ids, new Object[GraphVersion.CHUNK_SIZE], GraphVersion.CHUNK_BITS, 0, 0, 0);
+    }
+
+    /**
+     * Constructs a graph holding a copy of the towns and roads of a Graph
+     * @param graph graph to copy
+     */
+    public VersionedGraph(Graph graph){
+        this();
+
+        Edit edit = new Edit(current);
+        Set<Road> copied = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        for(Town town : graph.adjacents.keySet()){
+            edit.addVertex(town);
+        }
+        for(Town town : graph.adjacents.keySet()){
+            for(Road road : graph.adjacents.get(town)){
+                if(copied.add(road)){
+                    edit.addEdge(road.getSource(), road.getDestination(), road.getWeight(), road.getName());
+                }
+            }
+        }
+
+        current = edit.publish();
+    }
+
+    /**
+     * Gets the current version
+     * The version stays the same however the graph changes afterwards
+     * @return latest published version
+     */
+    public GraphVersion current(){
+        return current;
+    }
+
+    /**
+     * Finds an edge in the current version
+     * @param sourceVertex source vertex of the edge.
+     * @param destinationVertex target vertex of the edge.
+     * @return edge with matching source and destination, or null if not found
+     */
+    @Override
+    public Road getEdge(Town sourceVertex, Town destinationVertex) {
+        return current.getEdge(sourceVertex, destinationVertex);
+    }
+
+    /**
+     * Finds the vertex given name in the current version
+     * @param townName name to search
+     * @return Town that was found
+     */
+    public Town getVertex(String townName){
+        return current.getVertex(townName);
+    }
+
+    /**
+     * Determines if a given edge is in the current version
+     * @param sourceVertex source vertex of the edge.
+     * @param destinationVertex target vertex of the edge.
+     * @return true if edge is found, false otherwise
+     */
+    @Override
+    public boolean containsEdge(Town sourceVertex, Town destinationVertex) {
+        return current.containsEdge(sourceVertex, destinationVertex);
+    }
+
+    /**
+     * Determines if a vertex is in the current version
+     * @param town town to search for
+     * @return true if vertex is found, false otherwise
+     */
+    @Override
+    public boolean containsVertex(Town town) {
+        return current.containsVertex(town);
+    }
+
+    /**
+     * Retrieves a set of all edges in the current version
+     * @return a set of all edges
+     */
+    @Override
+    public Set<Road> edgeSet() {
+        return current.edgeSet();
+    }
+
+    /**
+     * Finds all of the roads adjacent to a given vertex in the current version
+     * @param vertex the vertex for which a set of touching edges is to be returned.
+     * @return set of all roads adjacent to the vertex
+     */
+    @Override
+    public Set<Road> edgesOf(Town vertex) {
+        return current.edgesOf(vertex);
+    }
+
+    /**
+     * Finds all vertices of the current version
+     * @return read-only set of all vertices
+     */
+    @Override
+    public Set<Town> vertexSet() {
+        return current.vertexSet();
+    }
+
+    /**
+     * Finds the shortest path between two vertexes in the current version
+     * @param sourceVertex starting vertex
+     * @param destinationVertex ending vertex
+     * @return an ArrayList containing the shortest path
+     */
+    @Override
+    public ArrayList<String> shortestPath(Town sourceVertex, Town destinationVertex) {
+        return current.shortestPath(sourceVertex, destinationVertex);
+    }
+
+    /**
+     * Finds the shortest distance to all other vertices in the current version
+     * @param sourceVertex the vertex to find shortest paths from
+     * @return result holding the distance and arriving road of every reachable town
+     */
+    public ShortestPathResult findShortestPaths(Town sourceVertex) {
+        return current.findShortestPaths(sourceVertex);
+    }
+
+    /**
+     * Not supported, the graph keeps no search results, use findShortestPaths instead
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void dijkstraShortestPath(Town sourceVertex) {
+        throw new UnsupportedOperationException("Versioned graphs keep no search results, use findShortestPaths");
+    }
+
+    /**
+     * Adds a road and publishes a new version
+     * @param sourceVertex source vertex of the edge.
+     * @param destinationVertex target vertex of the edge.
+     * @param weight weight of the edge
+     * @param description description for edge
+     * @return Road that was added
+     */
+    @Override
+    public Road addEdge(Town sourceVertex, Town destinationVertex, int weight, String description) {
+        synchronized(writeLock){
+            Edit edit = new Edit(current);
+            Road road = edit.addEdge(sourceVertex, destinationVertex, weight, description);
+            current = edit.publish();
+            return road;
+        }
+    }
+
+    /**
+     * Adds a town and publishes a new version
+     * @param town town to add
+     * @return true if town was added successfully, false if the town already exists
+     */
+    @Override
+    public boolean addVertex(Town town) {
+        synchronized(writeLock){
+            Edit edit = new Edit(current);
+
+            if(!edit.addVertex(town)){
+                return false;
+            }
+
+            current = edit.publish();
+            return true;
+        }
+    }
+
+    /**
+     * Removes a road and publishes a new version
+     * @param sourceVertex source vertex of the edge.
+     * @param destinationVertex target vertex of the edge.
+     * @param weight weight of the edge
+     * @param description name of the edge, or null to remove any road between the towns
+     * @return the road that was removed
+     */
+    @Override
+    public Road removeEdge(Town sourceVertex, Town destinationVertex, int weight, String description) {
+        synchronized(writeLock){
+            Edit edit = new Edit(current);
+            Road road = edit.removeEdge(sourceVertex, destinationVertex, description);
+
+            if(road != null){
+                current = edit.publish();
+            }
+
+            return road;
+        }
+    }
+
+    /**
+     * Removes a town with its roads and publishes a new version
+     * @param town town to be removed
+     * @return true if it was removed, false otherwise
+     */
+    @Override
+    public boolean removeVertex(Town town) {
+        synchronized(writeLock){
+            Edit edit = new Edit(current);
+
+            if(!edit.removeVertex(town)){
+                return false;
+            }
+
+            current = edit.publish();
+            return true;
+        }
+    }
+
+    /**
+     * Roads of a town that an Edit is changing, grown in place and copied into an entry once when the edit is published
+     */
+    private static final class Pending {
+        private final Town town;
+        private Road[] roads;
+        private int[] targets;
+        private int size;
+        private boolean shared;
+
+        Pending(GraphVersion.Entry entry){
+            town = entry.town;
+            roads = entry.roads;
+            targets = entry.targets;
+            size = roads.length;
+            shared = true;
+        }
+
+        void add(Road road, int target){
+            if(shared || size == roads.length){
+                resize(size == roads.length ? Math.max(4, 2 * size) : roads.length);
+            }
+
+            roads[size] = road;
+            targets[size++] = target;
+        }
+
+        void remove(int index){
+            if(shared){
+                resize(roads.length);
+            }
+
+            System.arraycopy(roads, index + 1, roads, index, size - index - 1);
+            System.arraycopy(targets, index + 1, targets, index, size - index - 1);
+            roads[--size] = null;
+        }
+
+        /**
+         * Moves the roads into arrays of their own, since the entry's arrays are shared with published versions
+         */
+        private void resize(int length){
+            roads = Arrays.copyOf(roads, length);
+            targets = Arrays.copyOf(targets, length);
+            shared = false;
+        }
+
+        GraphVersion.Entry toEntry(){
+            return new GraphVersion.Entry(town, Arrays.copyOf(roads, size), Arrays.copyOf(targets, size));
+        }
+    }
+
+    /**
+     * Changes made on top of a version, copying each table and chunk the first time it is written
+     * A write copies only the chunk holding its id and the tables on the path to it, so its cost does not
+     * grow with the number of towns. The roads of each town it changes are buffered until publish, so
+     * adding many roads to one town copies its arrays once
+     */
+    private final class Edit {
+        private static final int MASK = GraphVersion.CHUNK_SIZE - 1;
+
+        private final GraphVersion base;
+        private final Map<Integer, Pending> pending;
+        private final Set<Object[]> copied;
+        private Object[] root;
+        private int shift;
+        private int townCount, roadCount;
+
+        Edit(GraphVersion base){
+            this.base = base;
+            pending = new HashMap<>();
+            copied = Collections.newSetFromMap(new IdentityHashMap<>());
+            root = base.root();
+            shift = base.shift();
+            townCount = base.townCount();
+            roadCount = base.roadCount();
+        }
+
+        GraphVersion.Entry get(int id){
+            if(id >= nextId || (long) id >>> (shift + GraphVersion.CHUNK_BITS) != 0){
+                return null;
+            }
+
+            return GraphVersion.find(root, shift, id);
+        }
+
+        void set(int id, GraphVersion.Entry entry){
+            //A root that cannot hold the id becomes the first slot of a new root one level up
+            while((long) id >>> (shift + GraphVersion.CHUNK_BITS) != 0){
+                Object[] grown = own(new Object[GraphVersion.CHUNK_SIZE]);
+                grown[0] = root;
+                root = grown;
+                shift += GraphVersion.CHUNK_BITS;
+            }
+
+            root = copy(root);
+            Object[] table = root;
+
+            for(int level = shift; level > GraphVersion.CHUNK_BITS; level -= GraphVersion.CHUNK_BITS){
+                int slot = (id >>> level) & MASK;
+                Object[] child = (Object[]) table[slot];
+                table[slot] = child = child == null ? own(new Object[GraphVersion.CHUNK_SIZE]) : copy(child);
+                table = child;
+            }
+
+            int slot = (id >>> GraphVersion.CHUNK_BITS) & MASK;
+            GraphVersion.Entry[] chunk = (GraphVersion.Entry[]) table[slot];
+            table[slot] = chunk = chunk == null ? own(new GraphVersion.Entry[GraphVersion.CHUNK_SIZE]) : copy(chunk);
+            chunk[id & MASK] = entry;
+        }
+
+        /**
+         * Gets a table or chunk this edit may write to, copying it if it is shared with published versions
+         */
+        private <T> T[] copy(T[] node){
+            return copied.contains(node) ? node : own(node.clone());
+        }
+
+        private <T> T[] own(T[] node){
+            copied.add(node);
+            return node;
+        }
+
+        int idOf(Town town){
+            Integer id = town == null ? null : ids.get(town.getName());
+            return id == null || get(id) == null ? -1 : id;
+        }
+
+        boolean addVertex(Town town){
+            if(town == null){
+                throw new NullPointerException();
+            }
+            if(idOf(town) != -1){
+                return false;
+            }
+
+            //Ids are never reused for other names, so a removed town comes back under its old id
+            Integer id = ids.get(town.getName());
+            if(id == null){
+                id = nextId++;
+                ids.put(town.getName(), id);
+            }
+
+            pending.remove(id);
+            set(id, new GraphVersion.Entry(new Town(town.getName()), new Road[0], new int[0]));
+            townCount++;
+            return true;
+        }
+
+        Road addEdge(Town sourceVertex, Town destinationVertex, int weight, String description){
+            if(sourceVertex == null || destinationVertex == null){
+                throw new NullPointerException("Source and destination cannot be null");
+            }
+
+            int source = idOf(sourceVertex), destination = idOf(destinationVertex);
+            if(source == -1 || destination == -1){
+                throw new IllegalArgumentException("Source and destination must already be in the graph");
+            }
+
+            Road road = new Road(get(source).town, get(destination).town, weight, description);
+            pending(source).add(road, destination);
+
+            if(source != destination){
+                pending(destination).add(road, source);
+            }
+
+            roadCount++;
+            return road;
+        }
+
+        /**
+         * Gets the buffered roads of a town in the edit, starting them from its entry the first time
+         */
+        private Pending pending(int id){
+            return pending.computeIfAbsent(id, key -> new Pending(get(key)));
+        }
+
+        Road removeEdge(Town sourceVertex, Town destinationVertex, String description){
+            int source = idOf(sourceVertex), destination = idOf(destinationVertex);
+
+            if(source == -1 || destination == -1){
+                return null;
+            }
+
+            Pending roads = pending(source);
+            for(int i = 0; i < roads.size; i++){
+                Road road = roads.roads[i];
+
+                if(roads.targets[i] == destination && (description == null || description.equals(road.getName()))){
+                    detach(source, road);
+                    if(source != destination){
+                        detach(destination, road);
+                    }
+
+                    roadCount--;
+                    return road;
+                }
+            }
+
+            return null;
+        }
+
+        boolean removeVertex(Town town){
+            int id = idOf(town);
+
+            if(id == -1){
+                return false;
+            }
+
+            Pending roads = pending.remove(id);
+            if(roads == null){
+                roads = new Pending(get(id));
+            }
+
+            for(int i = 0; i < roads.size; i++){
+                if(roads.targets[i] != id){
+                    detach(roads.targets[i], roads.roads[i]);
+                }
+            }
+
+            set(id, null);
+            townCount--;
+            roadCount -= roads.size;
+            return true;
+        }
+
+        /**
+         * Removes a road from one of its towns, matching it by identity since parallel roads compare as equal
+         */
+        private void detach(int id, Road road){
+            Pending roads = pending(id);
+
+            for(int i = 0; i < roads.size; i++){
+                if(roads.roads[i] == road){
+                    roads.remove(i);
+                    return;
+                }
+            }
+        }
+
+        GraphVersion publish(){
+            for(Map.Entry<Integer, Pending> changed : pending.entrySet()){
+                //Towns that were only read still share their entry
+                if(!changed.getValue().shared){
+                    set(changed.getKey(), changed.getValue().toEntry());
+                }
+            }
+
+            return new GraphVersion(base.number() + 1, ids, root, shift, nextId, townCount, roadCount);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+import static org.junit.Assert.*;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class VersionedGraphTest {
+    private Graph expected;
+    private VersionedGraph graph;
+    private Town[] towns;
+
+    @Before
+    public void setUp() {
+        RoadNetworkGenerator generator = new RoadNetworkGenerator(RoadNetworkGenerator.Shape.GEOMETRIC, 1000, 5);
+        expected = generator.toGraph();
+        graph = new VersionedGraph(expected);
+        towns = generator.towns();
+    }
+
+    @Test
+    public void testMatchesGraph() {
+        assertEquals(expected.vertexSet(), graph.vertexSet());
+        assertEquals(expected.edgeSet().size(), graph.current().roadCount());
+        assertEquals(expected.edgesOf(towns[10]).size(), graph.edgesOf(towns[10]).size());
+        assertEquals(expected.getEdge(towns[0], expected.edgesOf(towns[0]).iterator().next().getOtherTown(towns[0])).getName(),
+                graph.getEdge(towns[0], graph.edgesOf(towns[0]).iterator().next().getOtherTown(towns[0])).getName());
+
+        assertEquals(expected.findShortestPaths(towns[3]).getDistances(), graph.findShortestPaths(towns[3]).getDistances());
+
+        for (int i = 0; i < 20; i++) {
+            Town source = towns[i * 37], destination = towns[999 - i * 41];
+            List<String> path = graph.shortestPath(source, destination);
+            assertEquals(expected.findShortestPath(source, destination).getDistance(), path.isEmpty() ? Integer.MAX_VALUE : TestRoutes.length(path));
+        }
+    }
+
+    @Test
+    public void testPinnedVersionDoesNotChange() {
+        Town a = towns[0], b = towns[1];
+
+        GraphVersion pinned = graph.current();
+        Map<Town, Integer> before = pinned.findShortestPaths(a).getDistances();
+        int roads = pinned.edgesOf(a).size();
+
+        assertTrue(graph.addVertex(new Town("Extra")));
+        graph.addEdge(a, new Town("Extra"), 1, "Spur");
+        graph.addEdge(new Town("Extra"), towns[999], 1, "Spur 2");
+        assertTrue(graph.removeVertex(b));
+
+        assertFalse(pinned.containsVertex(new Town("Extra")));
+        assertNull(pinned.getVertex("Extra"));
+        assertTrue(pinned.containsVertex(b));
+        assertEquals(roads, pinned.edgesOf(a).size());
+        assertEquals(before, pinned.findShortestPaths(a).getDistances());
+
+        assertEquals(pinned.number() + 4, graph.current().number());
+        assertFalse(graph.containsVertex(b));
+        long toB = pinned.edgesOf(a).stream().filter(road -> road.getOtherTown(a).equals(b)).count();
+        assertEquals(roads + 1 - toB, graph.edgesOf(a).size());
+        assertEquals(2, graph.shortestPath(a, towns[999]).size());
+    }
+
+    @Test
+    public void testRemovedTownComesBack() {
+        Town a = towns[0];
+        int roads = graph.current().roadCount();
+        int degree = graph.edgesOf(a).size();
+
+        assertTrue(graph.removeVertex(a));
+        assertFalse(graph.removeVertex(a));
+        assertEquals(roads - degree, graph.current().roadCount());
+        assertEquals(999, graph.current().townCount());
+
+        assertTrue(graph.addVertex(a));
+        assertFalse(graph.addVertex(a));
+        assertTrue(graph.edgesOf(a).isEmpty());
+        graph.addEdge(a, a, 3, "Loop");
+        graph.addEdge(a, towns[1], 3, "Twin");
+        graph.addEdge(a, towns[1], 2, "Twin");
+        assertEquals(3, graph.edgesOf(a).size());
+        assertEquals("Twin", graph.removeEdge(a, towns[1], 3, "Twin").getName());
+        assertEquals(2, graph.getEdge(a, towns[1]).getWeight());
+        assertNull(graph.removeEdge(a, towns[1], 0, "Missing"));
+        assertEquals(roads - degree + 2, graph.current().roadCount());
+    }
+
+    @Test
+    public void testHubKeepsEveryRoad() {
+        Graph star = new Graph();
+        Town hub = new Town("Hub");
+        star.addVertex(hub);
+        for (int i = 0; i < 5000; i++) {
+            Town spoke = new Town("Spoke_" + i);
+            star.addVertex(spoke);
+            star.addEdge(hub, spoke, i + 1, "Road_" + i);
+        }
+        star.addEdge(hub, new Town("Spoke_0"), 7, "Road_0");
+
+        VersionedGraph copy = new VersionedGraph(star);
+        assertEquals(5001, copy.edgesOf(hub).size());
+        assertEquals(5001, copy.current().roadCount());
+        assertEquals(5000, copy.current().findShortestPaths(hub).getDistances().get(new Town("Spoke_4999")).intValue());
+
+        assertEquals(1, copy.removeEdge(hub, new Town("Spoke_0"), 1, null).getWeight());
+        assertEquals(7, copy.getEdge(hub, new Town("Spoke_0")).getWeight());
+        assertTrue(copy.removeVertex(new Town("Spoke_0")));
+        assertEquals(4999, copy.edgesOf(hub).size());
+        assertEquals(4999, copy.current().roadCount());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testVersionIsReadOnly() {
+        graph.current().addVertex(new Town("Extra"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testVersionKeepsNoSearchResults() {
+        graph.current().dijkstraShortestPath(towns[0]);
+    }
+
+    @Test
+    public void testTownsPastOneTable() {
+        //Enough towns to need a second level of tables above the chunks
+        int count = GraphVersion.CHUNK_SIZE * GraphVersion.CHUNK_SIZE + 10;
+        VersionedGraph large = new VersionedGraph();
+        GraphVersion empty = large.current();
+
+        for (int i = 0; i < count; i++) {
+            large.addVertex(new Town("Town_" + i));
+        }
+        GraphVersion filled = large.current();
+        large.addEdge(new Town("Town_0"), new Town("Town_" + (count - 1)), 4, "Far");
+        assertTrue(large.removeVertex(new Town("Town_300")));
+
+        assertEquals(0, empty.townCount());
+        assertFalse(empty.containsVertex(new Town("Town_0")));
+        assertEquals(count, filled.townCount());
+        assertTrue(filled.containsVertex(new Town("Town_300")));
+        assertNull(filled.getEdge(new Town("Town_0"), new Town("Town_" + (count - 1))));
+
+        assertEquals(count - 1, large.current().townCount());
+        assertFalse(large.containsVertex(new Town("Town_300")));
+        assertTrue(large.containsVertex(new Town("Town_" + (count - 1))));
+        assertEquals(1, large.shortestPath(new Town("Town_" + (count - 1)), new Town("Town_0")).size());
+    }
+
+    @Test
+    public void testReadersDuringWrites() throws InterruptedException {
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        List<Thread> readers = new ArrayList<>();
+
+        for (int i = 0; i < 3; i++) {
+            int reader = i;
+            readers.add(new Thread(() -> {
+                try {
+                    while (writing.get()) {
+                        GraphVersion version = graph.current();
+                        Town source = towns[reader * 101];
+                        Map<Town, Integer> first = version.findShortestPaths(source).getDistances();
+                        assertEquals(version.townCount(), version.vertexSet().size());
+                        assertEquals(first, version.findShortestPaths(source).getDistances());
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            }));
+        }
+        for (Thread reader : readers) {
+            reader.start();
+        }
+
+        for (int j = 0; j < 500; j++) {
+            Town extra = new Town("Extra_" + j);
+            graph.addVertex(extra);
+            graph.addEdge(towns[j % 1000], extra, 1, "Spur_" + j);
+            graph.addEdge(extra, towns[(7 * j) % 1000], 1, "Spur_" + j);
+            if (j % 3 == 0) {
+                graph.removeVertex(extra);
+            }
+        }
+        writing.set(false);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        assertTrue(failures.toString(), failures.isEmpty());
+        assertEquals(1000 + 333, graph.current().townCount());
+    }
+
+    @Test
+    public void testOldVersionsAreReclaimed() throws InterruptedException {
+        GraphVersion pinned = graph.current();
+        WeakReference<GraphVersion> old = new WeakReference<>(pinned);
+
+        graph.addVertex(new Town("Extra"));
+        pinned = null;
+
+        for (int i = 0; i < 10 && old.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(old.get());
+    }
+}